@@ -0,0 +1,336 @@
+package com.kaige.datastructure.ch_05_array;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 5-10 间隙缓冲区数组（Gap Buffer）
+ * <p>
+ * 1）、数组中间保留一段空闲区域（gap），插入、删除都发生在 gap 的边界上；
+ * 2）、编辑位置变化时才移动 gap，移动的数据量等于两次编辑位置的距离；
+ * 3）、适合编辑器这类操作集中在光标附近的场景，连续的插入、删除均摊时间复杂度为 O(1)
+ * <p>
+ * 物理布局：| 元素 0 ~ gapStart-1 | gap | 元素 gapStart ~ size-1 |
+ */
+public class GapBufferArray<T> {
+
+  /**
+   * 默认容量
+   */
+  private static final int DEFAULT_CAPACITY = 10;
+
+  private Object[] data;
+
+  /**
+   * gap 的起始位置（包含）
+   */
+  private int gapStart;
+
+  /**
+   * gap 的结束位置（不包含）
+   */
+  private int gapEnd;
+
+  /**
+   * 指定数组容量大小
+   *
+   * @param capacity 数组的容量
+   */
+  public GapBufferArray(int capacity) {
+    data = new Object[Math.max(capacity, 1)];
+    gapStart = 0;
+    gapEnd = data.length;
+  }
+
+  /**
+   * 无参构造器
+   * <p>
+   * 默认数组容量大小为 10
+   * </p>
+   */
+  public GapBufferArray() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public static void main(String[] args) {
+    GapBufferArray<Character> array = new GapBufferArray<>(4);
+    for (char c : "hello world".toCharArray()) {
+      array.addLast(c);
+    }
+    System.out.println(array);
+    // 在光标位置 5 连续插入，gap 只在第一次插入时移动
+    array.add(5, ',');
+    array.add(6, ' ');
+    array.add(7, 'J');
+    System.out.println(array);
+    // 在光标附近连续删除
+    array.remove(7);
+    array.remove(6);
+    System.out.println("remove 后: " + array);
+    array.removeFirst();
+    array.removeLast();
+    System.out.println("removeFirst、removeLast 后: " + array);
+  }
+
+  /**
+   * 获取数组容量
+   *
+   * @return 数组容量
+   */
+  public int getCapacity() {
+    return data.length;
+  }
+
+  /**
+   * 获取当前元素个数
+   *
+   * @return 当前元素个数
+   */
+  public int count() {
+    return data.length - (gapEnd - gapStart);
+  }
+
+  /**
+   * 判断数组是否为空
+   *
+   * @return 数组是否为空
+   */
+  public boolean isEmpty() {
+    return count() == 0;
+  }
+
+  /**
+   * 修改 index 位置的元素
+   *
+   * @param index 元素索引
+   * @param e     元素
+   */
+  public void set(int index, T e) {
+    checkIndex(index);
+    data[physical(index)] = e;
+  }
+
+  /**
+   * 获取 index 位置的元素
+   *
+   * @param index 元素索引
+   * @return 元素
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+    checkIndex(index);
+    return (T) data[physical(index)];
+  }
+
+  /**
+   * 检查数据元素是否包含元素 e
+   *
+   * @param e 元素
+   * @return 数组是否包含元素 e
+   */
+  public boolean contains(T e) {
+    return find(e) != -1;
+  }
+
+  /**
+   * 查找元素对应的数组索引，跳过 gap
+   *
+   * @param e 元素
+   * @return 返回对应元素的数组下标，未找到返回 -1
+   */
+  public int find(T e) {
+    for (int i = 0; i < gapStart; i++) {
+      if (Objects.equals(data[i], e)) {
+        return i;
+      }
+    }
+    for (int i = gapEnd; i < data.length; i++) {
+      if (Objects.equals(data[i], e)) {
+        return i - (gapEnd - gapStart);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * 添加指定位置的元素
+   * <p>
+   * 先把 gap 移动到 index，再写入 gap 的第一个位置
+   *
+   * @param index 索引
+   * @param e     元素
+   */
+  public void add(int index, T e) {
+    checkIndexForAdd(index);
+    if (gapStart == gapEnd) {
+      // gap 用完了，扩容为原来的两倍，顺便把 gap 放在 index 处
+      resize(2 * data.length, index);
+    } else {
+      moveGap(index);
+    }
+    data[gapStart++] = e;
+  }
+
+  /**
+   * 插入元素到头部
+   *
+   * @param e 元素
+   */
+  public void addFirst(T e) {
+    add(0, e);
+  }
+
+  /**
+   * 插入元素到尾部
+   *
+   * @param e 元素
+   */
+  public void addLast(T e) {
+    add(count(), e);
+  }
+
+  /**
+   * 删除 index 上的元素
+   * <p>
+   * 先把 gap 移动到 index，被删除的元素紧跟在 gap 之后，将 gap 向后扩大一位即可
+   *
+   * @param index 删除元素的索引
+   * @return 删除的元素
+   */
+  @SuppressWarnings("unchecked")
+  public T remove(int index) {
+    checkIndex(index);
+    moveGap(index);
+    T e = (T) data[gapEnd];
+    data[gapEnd++] = null;
+
+    // 缩容，数组实际数量为容量的 1/4，并且数组的容量大于 2 时，进行缩容
+    int size = count();
+    if (size == data.length / 4 && data.length / 2 != 0) {
+      resize(data.length / 2, gapStart);
+    }
+    return e;
+  }
+
+  /**
+   * 删除头部元素
+   *
+   * @return 头部元素
+   */
+  public T removeFirst() {
+    return remove(0);
+  }
+
+  /**
+   * 删除最后一个元素
+   *
+   * @return 删除的元素
+   */
+  public T removeLast() {
+    return remove(count() - 1);
+  }
+
+  /**
+   * 删除元素
+   *
+   * @param e 删除的元素
+   */
+  public void removeElement(T e) {
+    int index = find(e);
+    if (index != -1) {
+      remove(index);
+    }
+  }
+
+  /**
+   * 逻辑索引转换为物理索引
+   *
+   * @param index 逻辑索引
+   * @return 物理索引
+   */
+  private int physical(int index) {
+    return index < gapStart ? index : index + (gapEnd - gapStart);
+  }
+
+  /**
+   * 将 gap 移动到逻辑位置 index，只搬移 gap 与 index 之间的数据
+   *
+   * @param index 逻辑索引
+   */
+  private void moveGap(int index) {
+    if (index == gapStart) {
+      return;
+    }
+    int gapLength = gapEnd - gapStart;
+    if (index < gapStart) {
+      // gap 左移：[index, gapStart) 搬到 gap 的右侧
+      int moved = gapStart - index;
+      System.arraycopy(data, index, data, gapEnd - moved, moved);
+      Arrays.fill(data, index, Math.min(gapStart, index + gapLength), null);
+    } else {
+      // gap 右移：gap 右侧的 index - gapStart 个元素搬到 gap 的左侧
+      int moved = index - gapStart;
+      System.arraycopy(data, gapEnd, data, gapStart, moved);
+      Arrays.fill(data, Math.max(gapEnd, index), gapEnd + moved, null);
+    }
+    gapStart = index;
+    gapEnd = index + gapLength;
+  }
+
+  /**
+   * 调整数组容量，并把 gap 放在逻辑位置 index，时间复杂度是 O(n)
+   *
+   * @param capacity 数组容量
+   * @param index    gap 的新位置
+   */
+  private void resize(int capacity, int index) {
+    int size = count();
+    Object[] newData = new Object[Math.max(capacity, 1)];
+    int tail = size - index;
+    // 先把所有元素按逻辑顺序复制到新数组，gap 位于 index 处
+    if (index <= gapStart) {
+      System.arraycopy(data, 0, newData, 0, index);
+      int fromGapLeft = gapStart - index;
+      System.arraycopy(data, index, newData, newData.length - tail, fromGapLeft);
+      System.arraycopy(data, gapEnd, newData, newData.length - tail + fromGapLeft, data.length - gapEnd);
+    } else {
+      System.arraycopy(data, 0, newData, 0, gapStart);
+      int fromGapRight = index - gapStart;
+      System.arraycopy(data, gapEnd, newData, gapStart, fromGapRight);
+      System.arraycopy(data, gapEnd + fromGapRight, newData, newData.length - tail, tail);
+    }
+    data = newData;
+    gapStart = index;
+    gapEnd = newData.length - tail;
+  }
+
+  @Override
+  public String toString() {
+    int size = count();
+    StringBuilder sb = new StringBuilder(
+      "当前数组的总容量为：" + data.length + "，元素数量为：" + size + "，gap 为：[" + gapStart + ", " + gapEnd
+        + "), 元素为：");
+    for (int i = 0; i < size; i++) {
+      sb.append(data[physical(i)]).append(", ");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * 检查索引的合法性
+   *
+   * @param index 数组的索引
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= count()) {
+      throw new IllegalArgumentException("非法的位置，范围为： 0<=index<GapBufferArray.count()");
+    }
+  }
+
+  private void checkIndexForAdd(int index) {
+    if (index < 0 || index > count()) {
+      throw new IllegalArgumentException("插入失败，索引的范围应该是为： 0 <= index <= " + count());
+    }
+  }
+
+}
@@ -0,0 +1,89 @@
+package com.kaige.datastructure.ch_05_array;
+
+import java.util.Random;
+
+/**
+ * 5-11 间隙缓冲区与搬移数组的性能对比
+ * <p>
+ * 模拟编辑器的操作：光标在小范围内随机移动，在光标处插入或删除元素
+ */
+public class GapBufferBenchmark {
+
+  /**
+   * 初始元素数量
+   */
+  private static final int initSize = 200_000;
+
+  /**
+   * 编辑操作次数
+   */
+  private static final int operations = 200_000;
+
+  /**
+   * 光标每次最多移动的距离
+   */
+  private static final int maxCursorStep = 16;
+
+  // 搬移数组	initSize = 200000	operations = 200000	元素数量：266402	耗时：11413ms
+  // 间隙缓冲区	initSize = 200000	operations = 200000	元素数量：266402	耗时：61ms
+  public static void main(String[] args) {
+    // 预热一轮，避免 JIT 编译影响结果
+    testGenericArray(new Random(1), initSize / 10, operations / 10);
+    testGapBufferArray(new Random(1), initSize / 10, operations / 10);
+
+    long start = System.currentTimeMillis();
+    int genericCount = testGenericArray(new Random(42), initSize, operations);
+    System.out.println("搬移数组\tinitSize = " + initSize + "\toperations = " + operations + "\t元素数量：" + genericCount
+      + "\t耗时：" + (System.currentTimeMillis() - start) + "ms");
+
+    start = System.currentTimeMillis();
+    int gapCount = testGapBufferArray(new Random(42), initSize, operations);
+    System.out.println("间隙缓冲区\tinitSize = " + initSize + "\toperations = " + operations + "\t元素数量：" + gapCount
+      + "\t耗时：" + (System.currentTimeMillis() - start) + "ms");
+  }
+
+  private static int testGenericArray(Random random, int initSize, int operations) {
+    GenericArray<Integer> array = new GenericArray<>(initSize);
+    for (int i = 0; i < initSize; i++) {
+      array.add(i, i);
+    }
+    int cursor = initSize / 2;
+    for (int i = 0; i < operations; i++) {
+      cursor = nextCursor(random, cursor, array.count());
+      if (random.nextInt(3) > 0 || array.count() == cursor) {
+        array.add(cursor, i);
+        cursor++;
+      } else {
+        array.remove(cursor);
+      }
+    }
+    return array.count();
+  }
+
+  private static int testGapBufferArray(Random random, int initSize, int operations) {
+    GapBufferArray<Integer> array = new GapBufferArray<>(initSize);
+    for (int i = 0; i < initSize; i++) {
+      array.add(i, i);
+    }
+    int cursor = initSize / 2;
+    for (int i = 0; i < operations; i++) {
+      cursor = nextCursor(random, cursor, array.count());
+      if (random.nextInt(3) > 0 || array.count() == cursor) {
+        array.add(cursor, i);
+        cursor++;
+      } else {
+        array.remove(cursor);
+      }
+    }
+    return array.count();
+  }
+
+  /**
+   * 光标在当前位置附近随机移动
+   */
+  private static int nextCursor(Random random, int cursor, int size) {
+    int next = cursor + random.nextInt(2 * maxCursorStep + 1) - maxCursorStep;
+    return Math.max(0, Math.min(size, next));
+  }
+
+}
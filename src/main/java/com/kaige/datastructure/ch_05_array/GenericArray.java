@@ -18,7 +18,7 @@ public class GenericArray<T> {
    *
    * @param capacity 数组的容量
    */
-  private GenericArray(int capacity) {
+  public GenericArray(int capacity) {
     data = (T[]) new Object[capacity];
     size = 0;
   }
@@ -29,7 +29,7 @@ public class GenericArray<T> {
    * 默认数组容量大小为 10
    * </p>
    */
-  private GenericArray() {
+  public GenericArray() {
     this(10);
   }
 
@@ -192,7 +192,7 @@ public class GenericArray<T> {
    * @param index 删除元素的索引
    * @return 删除的元素
    */
-  private T remove(int index) {
+  public T remove(int index) {
     // 检查索引合法性
     checkIndex(index);
     
@@ -0,0 +1,377 @@
+package com.kaige.datastructure.ch_05_array;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 5-3 int 类型数组
+ * <p>
+ * 1）、GenericArray 的 int 特化版本，元素直接存储在 int[] 中，避免装箱；
+ * 2）、支持扩容、缩容，批量操作基于 System.arraycopy；
+ * 3）、提供 PrimitiveIterator.OfInt 与 Spliterator.OfInt，遍历时不装箱
+ */
+public class IntArray {
+
+  /**
+   * 默认容量
+   */
+  private static final int DEFAULT_CAPACITY = 10;
+
+  private int[] data;
+
+  private int size;
+
+  /**
+   * 指定数组容量大小
+   *
+   * @param capacity 数组的容量
+   */
+  public IntArray(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("数组容量不能小于 0：" + capacity);
+    }
+    data = new int[capacity];
+    size = 0;
+  }
+
+  /**
+   * 无参构造器
+   * <p>
+   * 默认数组容量大小为 10
+   * </p>
+   */
+  public IntArray() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public static void main(String[] args) {
+    IntArray array = new IntArray();
+    array.addFirst(1);
+    array.addFirst(2);
+    array.addFirst(3);
+    array.addLast(4);
+    System.out.println(array);
+    array.add(4, 10);
+    System.out.println(array);
+
+    array.addAll(new int[]{20, 21, 22, 23, 24, 25, 26});
+    System.out.println("addAll 后: " + array);
+    array.removeRange(1, 4);
+    System.out.println("removeRange 后: " + array);
+
+    long sum = 0;
+    PrimitiveIterator.OfInt it = array.iterator();
+    while (it.hasNext()) {
+      sum += it.nextInt();
+    }
+    System.out.println("迭代求和：" + sum + "，stream 求和：" + array.stream().sum());
+  }
+
+  /**
+   * 获取数组容量
+   *
+   * @return 数组容量
+   */
+  public int getCapacity() {
+    return data.length;
+  }
+
+  /**
+   * 获取当前元素个数
+   *
+   * @return 当前元素个数
+   */
+  public int count() {
+    return size;
+  }
+
+  /**
+   * 判断数组是否为空
+   *
+   * @return 数组是否为空
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * 修改 index 位置的元素
+   *
+   * @param index 元素索引
+   * @param e     元素
+   */
+  public void set(int index, int e) {
+    checkIndex(index);
+    data[index] = e;
+  }
+
+  /**
+   * 获取 index 位置的元素
+   *
+   * @param index 元素索引
+   * @return 元素
+   */
+  public int get(int index) {
+    checkIndex(index);
+    return data[index];
+  }
+
+  /**
+   * 检查数组是否包含元素 e
+   *
+   * @param e 元素
+   * @return 数组是否包含元素 e
+   */
+  public boolean contains(int e) {
+    return find(e) != -1;
+  }
+
+  /**
+   * 查找元素对应的数组索引
+   *
+   * @param e 元素
+   * @return 返回对应元素的数组下标，未找到返回 -1
+   */
+  public int find(int e) {
+    for (int i = 0; i < size; i++) {
+      if (data[i] == e) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * 添加指定位置的元素
+   *
+   * @param index 索引
+   * @param e     元素
+   */
+  public void add(int index, int e) {
+    checkIndexForAdd(index);
+    ensureCapacity(size + 1);
+    // 将 index~size-1 的元素整体后移一位
+    System.arraycopy(data, index, data, index + 1, size - index);
+    data[index] = e;
+    size++;
+  }
+
+  /**
+   * 插入元素到头部
+   *
+   * @param e 元素
+   */
+  public void addFirst(int e) {
+    add(0, e);
+  }
+
+  /**
+   * 插入元素到尾部
+   *
+   * @param e 元素
+   */
+  public void addLast(int e) {
+    add(size, e);
+  }
+
+  /**
+   * 批量插入元素到尾部
+   *
+   * @param es 元素
+   */
+  public void addAll(int[] es) {
+    addAll(size, es);
+  }
+
+  /**
+   * 在指定位置批量插入元素，只搬移一次数据
+   *
+   * @param index 索引
+   * @param es    元素
+   */
+  public void addAll(int index, int[] es) {
+    checkIndexForAdd(index);
+    int n = es.length;
+    if (n == 0) {
+      return;
+    }
+    ensureCapacity(size + n);
+    System.arraycopy(data, index, data, index + n, size - index);
+    System.arraycopy(es, 0, data, index, n);
+    size += n;
+  }
+
+  /**
+   * 删除 index 上的元素
+   *
+   * @param index 删除元素的索引
+   * @return 删除的元素
+   */
+  public int remove(int index) {
+    checkIndex(index);
+    int e = data[index];
+    // 将 index+1~size-1 的元素向前移动一位
+    System.arraycopy(data, index + 1, data, index, size - index - 1);
+    size--;
+    shrinkIfNeeded();
+    return e;
+  }
+
+  /**
+   * 删除 [fromIndex, toIndex) 区间内的元素
+   *
+   * @param fromIndex 起始索引（包含）
+   * @param toIndex   结束索引（不包含）
+   */
+  public void removeRange(int fromIndex, int toIndex) {
+    if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+      throw new IllegalArgumentException(
+        "删除失败，区间范围应该为： 0 <= fromIndex <= toIndex <= " + size);
+    }
+    System.arraycopy(data, toIndex, data, fromIndex, size - toIndex);
+    size -= toIndex - fromIndex;
+    shrinkIfNeeded();
+  }
+
+  /**
+   * 删除头部元素
+   *
+   * @return 头部元素
+   */
+  public int removeFirst() {
+    return remove(0);
+  }
+
+  /**
+   * 删除最后一个元素
+   *
+   * @return 删除的元素
+   */
+  public int removeLast() {
+    return remove(size - 1);
+  }
+
+  /**
+   * 删除元素
+   *
+   * @param e 删除的元素
+   */
+  public void removeElement(int e) {
+    int index = find(e);
+    if (index != -1) {
+      remove(index);
+    }
+  }
+
+  /**
+   * 复制出当前所有元素
+   *
+   * @return 元素数组
+   */
+  public int[] toArray() {
+    return Arrays.copyOf(data, size);
+  }
+
+  /**
+   * 不装箱的迭代器
+   *
+   * @return 迭代器
+   */
+  public PrimitiveIterator.OfInt iterator() {
+    return new PrimitiveIterator.OfInt() {
+
+      private int cursor;
+
+      @Override
+      public boolean hasNext() {
+        return cursor < size;
+      }
+
+      @Override
+      public int nextInt() {
+        if (cursor >= size) {
+          throw new NoSuchElementException();
+        }
+        return data[cursor++];
+      }
+    };
+  }
+
+  /**
+   * 不装箱的可分割迭代器，覆盖当前的元素区间
+   *
+   * @return 可分割迭代器
+   */
+  public Spliterator.OfInt spliterator() {
+    return Arrays.spliterator(data, 0, size);
+  }
+
+  /**
+   * 基于 spliterator 的 IntStream
+   *
+   * @return 流
+   */
+  public IntStream stream() {
+    return StreamSupport.intStream(spliterator(), false);
+  }
+
+  /**
+   * 确保容量至少为 minCapacity，容量不足时扩容为原来的两倍
+   *
+   * @param minCapacity 最小容量
+   */
+  private void ensureCapacity(int minCapacity) {
+    if (minCapacity > data.length) {
+      resize(Math.max(minCapacity, 2 * data.length));
+    }
+  }
+
+  /**
+   * 缩容，数组实际数量为容量的 1/4，并且数组的容量大于 2 时，进行缩容
+   */
+  private void shrinkIfNeeded() {
+    if (size <= data.length / 4 && data.length / 2 != 0) {
+      resize(data.length / 2);
+    }
+  }
+
+  /**
+   * 调整数组容量，时间复杂度是 O(n)
+   *
+   * @param capacity 数组容量
+   */
+  private void resize(int capacity) {
+    data = Arrays.copyOf(data, capacity);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("当前数组的总容量为：" + data.length + "，元素数量为：" + size + ", 元素为：");
+    for (int i = 0; i < size; i++) {
+      sb.append(data[i]).append(", ");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * 检查索引的合法性
+   *
+   * @param index 数组的索引
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IllegalArgumentException("非法的位置，范围为： 0<=index<IntArray.count()");
+    }
+  }
+
+  private void checkIndexForAdd(int index) {
+    if (index < 0 || index > size) {
+      throw new IllegalArgumentException("插入失败，索引的范围应该是为： 0 <= index <= " + size);
+    }
+  }
+
+}
@@ -0,0 +1,380 @@
+package com.kaige.datastructure.ch_05_array;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 5-7 堆外数组
+ * <p>
+ * 1）、定长元素保存在堆外内存（DirectByteBuffer）或内存映射文件（MappedByteBuffer）中，不占用堆空间，也不参与 GC 扫描；
+ * 2）、内存映射模式下，数据头部记录了元素个数，进程重启后重新映射同一个文件即可恢复数据；
+ * 3）、使用完毕需要调用 close() 立即释放内存，不依赖 GC 回收；
+ * 4）、单个缓冲区使用 int 寻址，总字节数不能超过 Integer.MAX_VALUE
+ * <p>
+ * 数据布局：| magic(4) | 元素宽度(4) | 元素个数(4) | 保留(4) | 元素 0 | 元素 1 | ...
+ */
+abstract class OffHeapArray implements Closeable {
+
+  /**
+   * 文件头魔数
+   */
+  private static final int MAGIC = 0x4F484152;
+
+  /**
+   * 文件头长度
+   */
+  static final int HEADER_SIZE = 16;
+
+  private static final int WIDTH_OFFSET = 4;
+
+  private static final int SIZE_OFFSET = 8;
+
+  /**
+   * 数据搬移时使用的临时缓冲区大小
+   */
+  private static final int MOVE_CHUNK = 8 * 1024;
+
+  /**
+   * 每个元素占用的字节数
+   */
+  final int elementBytes;
+
+  /**
+   * 映射文件的通道，堆外内存模式下为 null
+   */
+  private final FileChannel channel;
+
+  /**
+   * 数据缓冲区，使用本地字节序
+   */
+  ByteBuffer buffer;
+
+  /**
+   * 元素个数
+   */
+  int size;
+
+  /**
+   * 数组容量
+   */
+  int capacity;
+
+  private boolean closed;
+
+  /**
+   * 在堆外内存中分配数组
+   *
+   * @param elementBytes 元素宽度
+   * @param capacity     初始容量
+   */
+  OffHeapArray(int elementBytes, int capacity) {
+    this.elementBytes = elementBytes;
+    this.capacity = Math.max(capacity, 1);
+    channel = null;
+    buffer = ByteBuffer.allocateDirect(byteLength(this.capacity)).order(ByteOrder.nativeOrder());
+    writeHeader();
+  }
+
+  /**
+   * 将数组映射到文件，文件中已有数据时恢复数据
+   *
+   * @param elementBytes 元素宽度
+   * @param file         映射文件
+   * @param capacity     初始容量
+   * @throws IOException 文件读写异常，或者非空文件不是堆外数组文件
+   */
+  OffHeapArray(int elementBytes, Path file, int capacity) throws IOException {
+    this.elementBytes = elementBytes;
+    channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+      StandardOpenOption.WRITE);
+    try {
+      long fileSize = channel.size();
+      int existing = 0;
+      if (fileSize > 0) {
+        // 映射前先校验文件头，不是本类创建的文件既不扩展也不覆盖
+        ByteBuffer header = readHeader(fileSize);
+        if (header.getInt(WIDTH_OFFSET) != elementBytes) {
+          throw new IllegalStateException(
+            "文件的元素宽度为 " + header.getInt(WIDTH_OFFSET) + "，与期望的 " + elementBytes + " 不一致");
+        }
+        existing = (int) ((fileSize - HEADER_SIZE) / elementBytes);
+      }
+      this.capacity = Math.max(Math.max(capacity, existing), 1);
+      buffer = map(this.capacity);
+
+      if (fileSize > 0) {
+        size = buffer.getInt(SIZE_OFFSET);
+      } else {
+        writeHeader();
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * 获取当前元素个数
+   *
+   * @return 当前元素个数
+   */
+  public int count() {
+    return size;
+  }
+
+  /**
+   * 判断数组是否为空
+   *
+   * @return 数组是否为空
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * 获取数组容量
+   *
+   * @return 数组容量
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * 是否为内存映射文件模式
+   *
+   * @return 是否映射文件
+   */
+  public boolean isMapped() {
+    return channel != null;
+  }
+
+  /**
+   * 将映射文件的修改刷到磁盘，堆外内存模式下不做任何事
+   */
+  public void flush() {
+    checkOpen();
+    if (buffer instanceof MappedByteBuffer) {
+      ((MappedByteBuffer) buffer).force();
+    }
+  }
+
+  /**
+   * 释放堆外内存或解除文件映射
+   *
+   * @throws IOException 关闭文件异常
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (buffer instanceof MappedByteBuffer) {
+      ((MappedByteBuffer) buffer).force();
+    }
+    release(buffer);
+    buffer = null;
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  /**
+   * 计算元素在缓冲区中的字节偏移
+   *
+   * @param index 元素索引
+   * @return 字节偏移
+   */
+  int offset(int index) {
+    return HEADER_SIZE + index * elementBytes;
+  }
+
+  /**
+   * 修改元素个数，并写入文件头
+   *
+   * @param newSize 元素个数
+   */
+  void setSize(int newSize) {
+    size = newSize;
+    buffer.putInt(SIZE_OFFSET, newSize);
+  }
+
+  /**
+   * 确保容量至少为 minCapacity，容量不足时扩容为原来的两倍
+   *
+   * @param minCapacity 最小容量
+   */
+  void ensureCapacity(int minCapacity) {
+    checkOpen();
+    if (minCapacity <= capacity) {
+      return;
+    }
+    long maxCapacity = (Integer.MAX_VALUE - HEADER_SIZE) / elementBytes;
+    if (minCapacity > maxCapacity) {
+      throw new IllegalStateException("超出堆外数组的最大容量：" + maxCapacity);
+    }
+    int newCapacity = (int) Math.min(Math.max(minCapacity, 2L * capacity), maxCapacity);
+
+    ByteBuffer old = buffer;
+    if (channel != null) {
+      // 先映射更大的区域，文件会自动变长，成功后再解除旧映射，映射失败时数组仍然可用
+      ((MappedByteBuffer) old).force();
+      try {
+        buffer = map(newCapacity);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      release(old);
+    } else {
+      ByteBuffer newBuffer = ByteBuffer.allocateDirect(byteLength(newCapacity)).order(ByteOrder.nativeOrder());
+      ByteBuffer src = old.duplicate();
+      src.position(0).limit(offset(size));
+      newBuffer.put(src);
+      newBuffer.clear();
+      release(old);
+      buffer = newBuffer;
+    }
+    capacity = newCapacity;
+  }
+
+  /**
+   * 将 [from, from + count) 的元素整体搬移到 to 开始的位置，区间可以重叠
+   *
+   * @param from  源起始索引
+   * @param to    目标起始索引
+   * @param count 元素个数
+   */
+  void moveElements(int from, int to, int count) {
+    if (count <= 0 || from == to) {
+      return;
+    }
+    int remaining = count * elementBytes;
+    int src = offset(from);
+    int dst = offset(to);
+    byte[] tmp = new byte[Math.min(MOVE_CHUNK, remaining)];
+    ByteBuffer dup = buffer.duplicate();
+    if (to > from) {
+      // 向后搬移，从尾部开始复制，避免覆盖还未搬移的数据
+      while (remaining > 0) {
+        int n = Math.min(tmp.length, remaining);
+        remaining -= n;
+        dup.position(src + remaining);
+        dup.get(tmp, 0, n);
+        dup.position(dst + remaining);
+        dup.put(tmp, 0, n);
+      }
+    } else {
+      int done = 0;
+      while (done < remaining) {
+        int n = Math.min(tmp.length, remaining - done);
+        dup.position(src + done);
+        dup.get(tmp, 0, n);
+        dup.position(dst + done);
+        dup.put(tmp, 0, n);
+        done += n;
+      }
+    }
+  }
+
+  void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("堆外数组已经关闭");
+    }
+  }
+
+  /**
+   * 检查索引的合法性
+   *
+   * @param index 数组的索引
+   */
+  void checkIndex(int index) {
+    checkOpen();
+    if (index < 0 || index >= size) {
+      throw new IllegalArgumentException("非法的位置，范围为： 0<=index<" + size);
+    }
+  }
+
+  private int byteLength(int capacity) {
+    long length = HEADER_SIZE + (long) capacity * elementBytes;
+    if (length > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("堆外数组的字节数不能超过 Integer.MAX_VALUE：" + length);
+    }
+    return (int) length;
+  }
+
+  private MappedByteBuffer map(int capacity) throws IOException {
+    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, byteLength(capacity));
+    mapped.order(ByteOrder.nativeOrder());
+    return mapped;
+  }
+
+  /**
+   * 读取已有文件的文件头
+   *
+   * @param fileSize 文件大小
+   * @return 文件头
+   * @throws IOException 文件读写异常，或者文件不是堆外数组文件
+   */
+  private ByteBuffer readHeader(long fileSize) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+    if (fileSize >= HEADER_SIZE) {
+      while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+        // 读满文件头
+      }
+    }
+    if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+      throw new IOException("文件不是堆外数组文件，大小为 " + fileSize + " 字节");
+    }
+    return header;
+  }
+
+  private void writeHeader() {
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(WIDTH_OFFSET, elementBytes);
+    buffer.putInt(SIZE_OFFSET, size);
+  }
+
+  /**
+   * 立即释放 DirectByteBuffer 或 MappedByteBuffer
+   * <p>
+   * JDK 9 及以上使用 Unsafe.invokeCleaner，JDK 8 使用 DirectBuffer.cleaner().clean()，失败时交给 GC 回收
+   *
+   * @param buffer 缓冲区
+   */
+  private static void release(ByteBuffer buffer) {
+    if (buffer == null || !buffer.isDirect()) {
+      return;
+    }
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      return;
+    } catch (ReflectiveOperationException | RuntimeException ignored) {
+      // JDK 8 没有 invokeCleaner
+    }
+    try {
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        cleaner.getClass().getMethod("clean").invoke(cleaner);
+      }
+    } catch (ReflectiveOperationException | RuntimeException ignored) {
+      // 无法主动释放，只能等待 GC
+    }
+  }
+
+}
@@ -0,0 +1,159 @@
+package com.kaige.datastructure.ch_05_array;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 5-9 堆外 long 数组
+ * <p>
+ * 插入、删除、查找的语义与 Array 一致，数据保存在堆外内存或内存映射文件中
+ */
+public class OffHeapLongArray extends OffHeapArray {
+
+  private OffHeapLongArray(int capacity) {
+    super(Long.BYTES, capacity);
+  }
+
+  private OffHeapLongArray(Path file, int capacity) throws IOException {
+    super(Long.BYTES, file, capacity);
+  }
+
+  /**
+   * 在堆外内存中分配数组
+   *
+   * @param capacity 初始容量
+   * @return 数组
+   */
+  public static OffHeapLongArray allocate(int capacity) {
+    return new OffHeapLongArray(capacity);
+  }
+
+  /**
+   * 将数组映射到文件，文件中已有数据时直接恢复
+   *
+   * @param file     映射文件
+   * @param capacity 初始容量
+   * @return 数组
+   * @throws IOException 文件读写异常
+   */
+  public static OffHeapLongArray map(Path file, int capacity) throws IOException {
+    return new OffHeapLongArray(file, capacity);
+  }
+
+  public static void main(String[] args) throws IOException {
+    try (OffHeapLongArray array = OffHeapLongArray.allocate(2)) {
+      array.insert(0, 0);
+      array.insert(1, 1);
+      array.insert(2, 2);
+      array.insert(0, 3);
+      array.printAll();
+      array.delete(1);
+      array.printAll();
+      System.out.println(array.find(1));
+    }
+
+    Path file = Files.createTempFile("off-heap-long-array", ".dat");
+    try (OffHeapLongArray array = OffHeapLongArray.map(file, 4)) {
+      for (int i = 0; i < 10; i++) {
+        array.insert(array.count(), (long) i * i);
+      }
+      array.printAll();
+    }
+    // 重新映射同一个文件，数据仍然存在
+    try (OffHeapLongArray array = OffHeapLongArray.map(file, 4)) {
+      array.printAll();
+    }
+    Files.delete(file);
+  }
+
+  /**
+   * 根据索引查找数组中的元素并返回
+   *
+   * @param index 索引
+   * @return 返回指定索引的数据值，没有则返回 -1
+   */
+  public long find(int index) {
+    checkOpen();
+    if (index < 0 || index >= size) {
+      return -1;
+    }
+    return buffer.getLong(offset(index));
+  }
+
+  /**
+   * 修改 index 位置的元素
+   *
+   * @param index 索引
+   * @param value 值
+   */
+  public void set(int index, long value) {
+    checkIndex(index);
+    buffer.putLong(offset(index), value);
+  }
+
+  /**
+   * 查找元素第一次出现的位置
+   *
+   * @param value 值
+   * @return 元素索引，未找到返回 -1
+   */
+  public int indexOf(long value) {
+    checkOpen();
+    for (int i = 0; i < size; i++) {
+      if (buffer.getLong(offset(i)) == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * 插入元素，容量不足时自动扩容
+   *
+   * @param index 索引
+   * @param value 值
+   * @return 插入是否成功
+   */
+  public boolean insert(int index, long value) {
+    checkOpen();
+    if (index < 0 || index > size) {
+      System.out.println("不合法的位置");
+      return false;
+    }
+    ensureCapacity(size + 1);
+    // 将 index~size-1 的元素向后移动一位
+    moveElements(index, index + 1, size - index);
+    buffer.putLong(offset(index), value);
+    setSize(size + 1);
+    return true;
+  }
+
+  /**
+   * 删除指定位置的元素
+   *
+   * @param index 索引
+   * @return 删除是否成功
+   */
+  public boolean delete(int index) {
+    checkOpen();
+    if (index < 0 || index >= size) {
+      return false;
+    }
+    moveElements(index + 1, index, size - index - 1);
+    setSize(size - 1);
+    return true;
+  }
+
+  /**
+   * 打印出数组的所有元素
+   */
+  public void printAll() {
+    checkOpen();
+    for (int i = 0; i < size; i++) {
+      System.out.print(buffer.getLong(offset(i)) + "\t");
+    }
+    System.out.println();
+  }
+
+}
@@ -0,0 +1,338 @@
+package com.kaige.datastructure.ch_05_array;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 5-6 分段数组
+ * <p>
+ * 1）、GenericArray 的分段存储版本，数据保存在多个固定大小的块（chunk）中；
+ * 2）、扩容只追加一个新块，不再整体复制数据，单次分配的大小不超过一个块；
+ * 3）、块大小为 2 的幂次方，通过位运算定位元素：块号 = index >>> shift，块内偏移 = index & mask
+ */
+public class SegmentedArray<T> {
+
+  /**
+   * 默认块大小为 2^14，开启压缩指针时约 64KB，远小于 G1 的 region
+   */
+  private static final int DEFAULT_CHUNK_SIZE = 1 << 14;
+
+  /**
+   * 块目录的初始长度
+   */
+  private static final int INITIAL_DIRECTORY_LENGTH = 4;
+
+  /**
+   * 块目录，每个元素为一个数据块
+   */
+  private Object[][] chunks;
+
+  /**
+   * 已分配的块数量
+   */
+  private int chunkCount;
+
+  /**
+   * 块大小的位数
+   */
+  private final int shift;
+
+  /**
+   * 块内偏移的掩码
+   */
+  private final int mask;
+
+  private int size;
+
+  /**
+   * 指定块大小
+   *
+   * @param chunkSize 块大小，必须为 2 的幂次方
+   */
+  public SegmentedArray(int chunkSize) {
+    if (chunkSize <= 0 || (chunkSize & (chunkSize - 1)) != 0) {
+      throw new IllegalArgumentException("块大小必须为 2 的幂次方：" + chunkSize);
+    }
+    shift = Integer.numberOfTrailingZeros(chunkSize);
+    mask = chunkSize - 1;
+    chunks = new Object[INITIAL_DIRECTORY_LENGTH][];
+    chunkCount = 0;
+    size = 0;
+  }
+
+  /**
+   * 无参构造器
+   * <p>
+   * 默认块大小为 2^14
+   * </p>
+   */
+  public SegmentedArray() {
+    this(DEFAULT_CHUNK_SIZE);
+  }
+
+  public static void main(String[] args) {
+    SegmentedArray<Integer> array = new SegmentedArray<>(4);
+    for (int i = 0; i < 10; i++) {
+      array.addLast(i);
+    }
+    System.out.println(array);
+    array.add(1, 100);
+    array.addFirst(-1);
+    System.out.println(array);
+
+    array.remove(2);
+    System.out.println("remove 后: " + array);
+    array.removeFirst();
+    array.removeLast();
+    System.out.println("removeFirst、removeLast 后: " + array);
+    while (array.count() > 2) {
+      array.removeLast();
+    }
+    System.out.println("缩容后: " + array);
+  }
+
+  /**
+   * 获取数组容量
+   *
+   * @return 数组容量
+   */
+  public int getCapacity() {
+    return chunkCount << shift;
+  }
+
+  /**
+   * 获取当前元素个数
+   *
+   * @return 当前元素个数
+   */
+  public int count() {
+    return size;
+  }
+
+  /**
+   * 判断数组是否为空
+   *
+   * @return 数组是否为空
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * 修改 index 位置的元素
+   *
+   * @param index 元素索引
+   * @param e     元素
+   */
+  public void set(int index, T e) {
+    checkIndex(index);
+    chunks[index >>> shift][index & mask] = e;
+  }
+
+  /**
+   * 获取 index 位置的元素
+   *
+   * @param index 元素索引
+   * @return 元素
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+    checkIndex(index);
+    return (T) chunks[index >>> shift][index & mask];
+  }
+
+  /**
+   * 检查数据元素是否包含元素 e
+   *
+   * @param e 元素
+   * @return 数组是否包含元素 e
+   */
+  public boolean contains(T e) {
+    return find(e) != -1;
+  }
+
+  /**
+   * 查找元素对应的数组索引，逐块遍历
+   *
+   * @param e 元素
+   * @return 返回对应元素的数组下标，未找到返回 -1
+   */
+  public int find(T e) {
+    int index = 0;
+    for (int c = 0; index < size; c++) {
+      Object[] chunk = chunks[c];
+      int end = Math.min(chunk.length, size - index);
+      for (int i = 0; i < end; i++) {
+        if (Objects.equals(chunk[i], e)) {
+          return index + i;
+        }
+      }
+      index += end;
+    }
+    return -1;
+  }
+
+  /**
+   * 添加指定位置的元素
+   * <p>
+   * 从最后一个块开始，块内整体后移一位，再把前一块的末尾元素搬到当前块的头部
+   *
+   * @param index 索引
+   * @param e     元素
+   */
+  public void add(int index, T e) {
+    checkIndexForAdd(index);
+    if (size == getCapacity()) {
+      appendChunk();
+    }
+
+    // last 为当前空出来的位置
+    int last = size;
+    int target = index >>> shift;
+    int c = last >>> shift;
+    while (c > target) {
+      Object[] cur = chunks[c];
+      System.arraycopy(cur, 0, cur, 1, last & mask);
+      cur[0] = chunks[c - 1][mask];
+      last = (c << shift) - 1;
+      c--;
+    }
+    Object[] cur = chunks[c];
+    int offset = index & mask;
+    System.arraycopy(cur, offset, cur, offset + 1, (last & mask) - offset);
+    cur[offset] = e;
+    size++;
+  }
+
+  /**
+   * 插入元素到头部
+   *
+   * @param e 元素
+   */
+  public void addFirst(T e) {
+    add(0, e);
+  }
+
+  /**
+   * 插入元素到尾部，时间复杂度 O(1)
+   *
+   * @param e 元素
+   */
+  public void addLast(T e) {
+    add(size, e);
+  }
+
+  /**
+   * 删除 index 上的元素
+   * <p>
+   * 块内整体前移一位，再把后一块的头部元素搬到当前块的末尾
+   *
+   * @param index 删除元素的索引
+   * @return 删除的元素
+   */
+  @SuppressWarnings("unchecked")
+  public T remove(int index) {
+    checkIndex(index);
+    int c = index >>> shift;
+    int offset = index & mask;
+    T e = (T) chunks[c][offset];
+
+    int lastChunk = (size - 1) >>> shift;
+    while (c < lastChunk) {
+      Object[] cur = chunks[c];
+      System.arraycopy(cur, offset + 1, cur, offset, mask - offset);
+      cur[mask] = chunks[c + 1][0];
+      offset = 0;
+      c++;
+    }
+    Object[] cur = chunks[c];
+    int lastOffset = (size - 1) & mask;
+    System.arraycopy(cur, offset + 1, cur, offset, lastOffset - offset);
+    cur[lastOffset] = null;
+    size--;
+
+    releaseChunks();
+    return e;
+  }
+
+  /**
+   * 删除头部元素
+   *
+   * @return 头部元素
+   */
+  public T removeFirst() {
+    return remove(0);
+  }
+
+  /**
+   * 删除最后一个元素
+   *
+   * @return 删除的元素
+   */
+  public T removeLast() {
+    return remove(size - 1);
+  }
+
+  /**
+   * 删除元素
+   *
+   * @param e 删除的元素
+   */
+  public void removeElement(T e) {
+    int index = find(e);
+    if (index != -1) {
+      remove(index);
+    }
+  }
+
+  /**
+   * 追加一个数据块，只有块目录在满时才需要复制，目录本身很小
+   */
+  private void appendChunk() {
+    if (chunkCount == chunks.length) {
+      chunks = Arrays.copyOf(chunks, chunks.length * 2);
+    }
+    chunks[chunkCount++] = new Object[mask + 1];
+  }
+
+  /**
+   * 缩容，末尾多出两个以上的空块时释放掉，保留一个空块避免在边界上反复分配
+   */
+  private void releaseChunks() {
+    int used = (size + mask) >>> shift;
+    if (chunkCount - used >= 2) {
+      for (int c = used + 1; c < chunkCount; c++) {
+        chunks[c] = null;
+      }
+      chunkCount = used + 1;
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(
+      "当前数组的总容量为：" + getCapacity() + "，块数量为：" + chunkCount + "，元素数量为：" + size + ", 元素为：");
+    for (int i = 0; i < size; i++) {
+      sb.append(chunks[i >>> shift][i & mask]).append(", ");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * 检查索引的合法性
+   *
+   * @param index 数组的索引
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IllegalArgumentException("非法的位置，范围为： 0<=index<SegmentedArray.count()");
+    }
+  }
+
+  private void checkIndexForAdd(int index) {
+    if (index < 0 || index > size) {
+      throw new IllegalArgumentException("插入失败，索引的范围应该是为： 0 <= index <= " + size);
+    }
+  }
+
+}
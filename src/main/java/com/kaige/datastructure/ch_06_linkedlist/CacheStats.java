@@ -0,0 +1,119 @@
+package com.kaige.datastructure.ch_06_linkedlist;
+
+/**
+ * 缓存统计数据快照，不可变
+ */
+public final class CacheStats {
+
+  static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, 0, 0);
+
+  private final long hitCount;
+
+  private final long missCount;
+
+  private final long evictionCount;
+
+  private final long evictionWeight;
+
+  private final long loadSuccessCount;
+
+  private final long loadFailureCount;
+
+  /**
+   * 加载总耗时，单位纳秒
+   */
+  private final long totalLoadTime;
+
+  /**
+   * 缓存当前的总权重，不指定权重时为元素数量
+   */
+  private final long weightedSize;
+
+  public CacheStats(long hitCount, long missCount, long evictionCount, long evictionWeight,
+    long loadSuccessCount, long loadFailureCount, long totalLoadTime, long weightedSize) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.evictionWeight = evictionWeight;
+    this.loadSuccessCount = loadSuccessCount;
+    this.loadFailureCount = loadFailureCount;
+    this.totalLoadTime = totalLoadTime;
+    this.weightedSize = weightedSize;
+  }
+
+  /**
+   * 替换当前总权重，计数器不知道缓存的大小，由缓存在生成快照时填入
+   *
+   * @param weightedSize 当前总权重
+   * @return 新的快照
+   */
+  public CacheStats withWeightedSize(long weightedSize) {
+    return new CacheStats(hitCount, missCount, evictionCount, evictionWeight,
+      loadSuccessCount, loadFailureCount, totalLoadTime, weightedSize);
+  }
+
+  public long hitCount() {
+    return hitCount;
+  }
+
+  public long missCount() {
+    return missCount;
+  }
+
+  public long requestCount() {
+    return hitCount + missCount;
+  }
+
+  /**
+   * 命中率，没有请求时为 1
+   *
+   * @return 命中率
+   */
+  public double hitRate() {
+    long requestCount = requestCount();
+    return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+  }
+
+  public long evictionCount() {
+    return evictionCount;
+  }
+
+  public long evictionWeight() {
+    return evictionWeight;
+  }
+
+  public long loadSuccessCount() {
+    return loadSuccessCount;
+  }
+
+  public long loadFailureCount() {
+    return loadFailureCount;
+  }
+
+  public long totalLoadTime() {
+    return totalLoadTime;
+  }
+
+  /**
+   * 平均每次加载的耗时，单位纳秒
+   *
+   * @return 平均加载耗时
+   */
+  public double averageLoadPenalty() {
+    long loadCount = loadSuccessCount + loadFailureCount;
+    return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+  }
+
+  public long weightedSize() {
+    return weightedSize;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("命中 %d，未命中 %d，命中率 %.2f%%，淘汰 %d（权重 %d），加载成功 %d，加载失败 %d，"
+        + "平均加载耗时 %.0fns，当前权重 %d",
+      hitCount, missCount, hitRate() * 100, evictionCount, evictionWeight, loadSuccessCount, loadFailureCount,
+      averageLoadPenalty(), weightedSize);
+  }
+
+}
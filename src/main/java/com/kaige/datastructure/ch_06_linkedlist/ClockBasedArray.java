@@ -0,0 +1,228 @@
+package com.kaige.datastructure.ch_06_linkedlist;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 6-8 基于数组的 CLOCK（二次机会）缓存
+ * <p>
+ * LRUBasedArray 每次命中都要把元素左侧的数据右移一位，是 O(n) 的操作。CLOCK 是 LRU 的近似：
+ * 1. 数据放在固定大小的环形数组中，HashMap 记录元素的下标，数据写入后不再移动；
+ * 2. 命中时只把元素的访问位置为 true，时间复杂度 O(1)；
+ * 3. 淘汰时指针沿环形数组转动：访问位为 true 的元素清除访问位，得到第二次机会，遇到访问位为 false 的元素则淘汰它；
+ * 4. 新元素的访问位为 false，只访问一次的数据（例如批量扫描）很快会被淘汰，不会挤掉反复访问的数据
+ */
+public class ClockBasedArray<T> {
+
+  /**
+   * 默认缓存容量8
+   */
+  private static final int DEFAULT_CAPACITY = 1 << 3;
+
+  /**
+   * 缓存容量
+   */
+  private final int capacity;
+
+  /**
+   * 数据，删除后的空位为 null
+   */
+  private final T[] value;
+
+  /**
+   * 访问位
+   */
+  private final boolean[] referenced;
+
+  /**
+   * 用于记录元素的索引值
+   */
+  private final Map<T, Integer> holder;
+
+  /**
+   * 时钟指针，指向下一个淘汰候选的位置
+   */
+  private int hand;
+
+  /**
+   * 缓存中元素的数量
+   */
+  private int count;
+
+  /**
+   * 从未使用过的位置从 used 开始，used 到达容量后，新元素只能放入指针扫描到的空位或者淘汰的位置
+   */
+  private int used;
+
+  @SuppressWarnings("unchecked")
+  public ClockBasedArray(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("容量必须大于 0");
+    }
+    this.capacity = capacity;
+    value = (T[]) new Object[capacity];
+    referenced = new boolean[capacity];
+    holder = new HashMap<>(capacity);
+  }
+
+  public ClockBasedArray() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * 偏斜访问下的命中率（容量 1000，key 数量 20000，访问 200 万次）：
+   * CLOCK 23.91%，LRU 22.95%，CLOCK 命中时不移动数据，命中率与 LRU 相当
+   */
+  public static void main(String[] args) {
+    ClockBasedArray<String> cache = new ClockBasedArray<>(4);
+    cache.offer("a");
+    cache.offer("b");
+    cache.offer("c");
+    cache.offer("d");
+    cache.offer("a");
+    System.out.println(cache);
+    // a 有第二次机会，淘汰 b
+    cache.offer("e");
+    System.out.println(cache);
+
+    // 偏斜访问下与 LRU 的命中率对比
+    int capacity = 1_000;
+    int keys = 20_000;
+    int accesses = 2_000_000;
+    ClockBasedArray<Integer> clock = new ClockBasedArray<>(capacity);
+    Map<Integer, Boolean> lru = new LinkedHashMap<Integer, Boolean>(capacity, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+        return size() > capacity;
+      }
+    };
+    Random random = new Random(42);
+    long clockHits = 0;
+    long lruHits = 0;
+    for (int i = 0; i < accesses; i++) {
+      // 随机数的三次方让小的 key 更热
+      double r = random.nextDouble();
+      int key = (int) (r * r * r * keys);
+      if (clock.offer(key)) {
+        clockHits++;
+      }
+      if (lru.put(key, Boolean.TRUE) != null) {
+        lruHits++;
+      }
+    }
+    System.out.printf("容量 %d，key 数量 %d：CLOCK 命中率 %.2f%%，LRU 命中率 %.2f%%%n",
+      capacity, keys, clockHits * 100.0 / accesses, lruHits * 100.0 / accesses);
+  }
+
+  /**
+   * 模拟访问某个值：命中则设置访问位，未命中则写入缓存，缓存已满时淘汰一个元素
+   *
+   * @param object 值
+   * @return 是否命中
+   */
+  public boolean offer(T object) {
+    if (object == null) {
+      throw new IllegalArgumentException("不支持 null 数据");
+    }
+    Integer index = holder.get(object);
+    if (index != null) {
+      referenced[index] = true;
+      return true;
+    }
+    int slot;
+    if (used < capacity) {
+      slot = used++;
+    } else if (count < capacity) {
+      slot = findEmpty();
+    } else {
+      slot = sweep();
+    }
+    if (value[slot] != null) {
+      holder.remove(value[slot]);
+      count--;
+    }
+    value[slot] = object;
+    referenced[slot] = false;
+    holder.put(object, slot);
+    count++;
+    return false;
+  }
+
+  /**
+   * 判断元素是否存在缓存中，不影响访问位
+   *
+   * @param object 元素
+   * @return 是否存在
+   */
+  public boolean contains(T object) {
+    return holder.containsKey(object);
+  }
+
+  /**
+   * 删除元素，留下的空位由指针扫描时复用
+   *
+   * @param object 元素
+   * @return 是否删除成功
+   */
+  public boolean remove(T object) {
+    Integer index = holder.remove(object);
+    if (index == null) {
+      return false;
+    }
+    value[index] = null;
+    referenced[index] = false;
+    count--;
+    return true;
+  }
+
+  public int size() {
+    return count;
+  }
+
+  /**
+   * 有元素被删除过时，从指针位置开始找到一个空位，不改变访问位
+   *
+   * @return 位置
+   */
+  private int findEmpty() {
+    while (value[hand] != null) {
+      hand = hand + 1 == capacity ? 0 : hand + 1;
+    }
+    int slot = hand;
+    hand = hand + 1 == capacity ? 0 : hand + 1;
+    return slot;
+  }
+
+  /**
+   * 缓存已满时转动时钟指针，找到访问位为 false 的位置，最多转两圈
+   *
+   * @return 位置
+   */
+  private int sweep() {
+    while (referenced[hand]) {
+      referenced[hand] = false;
+      hand = hand + 1 == capacity ? 0 : hand + 1;
+    }
+    int slot = hand;
+    hand = hand + 1 == capacity ? 0 : hand + 1;
+    return slot;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < used; i++) {
+      if (value[i] != null) {
+        sb.append(value[i]);
+        if (referenced[i]) {
+          sb.append('*');
+        }
+        sb.append(" ");
+      }
+    }
+    return sb.toString();
+  }
+
+}
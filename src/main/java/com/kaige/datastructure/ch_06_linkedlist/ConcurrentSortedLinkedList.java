@@ -0,0 +1,202 @@
+package com.kaige.datastructure.ch_06_linkedlist;
+
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 6-6 无锁的并发有序单链表（Harris 算法）
+ * <p>
+ * 1）元素按从小到大排列，允许重复元素，插入、删除、查找的语义与 SinglyLinkedList 一致；
+ * 2）结点的 next 指针与删除标记放在同一个 AtomicMarkableReference 中，一次 CAS 同时比较两者；
+ * 3）删除分两步：先给结点打上删除标记（逻辑删除），再从前驱结点摘除（物理删除）。
+ * 物理删除失败也没关系，后续遍历到被标记的结点时会顺手摘除；
+ * 4）查找不修改链表，也不需要重试，是 wait-free 的
+ */
+public class ConcurrentSortedLinkedList {
+
+  /**
+   * 哨兵头结点，它的值不参与比较
+   */
+  private final Node head = new Node(Integer.MIN_VALUE, null);
+
+  /**
+   * 元素数量，并发修改时只是一个近似值
+   */
+  private final LongAdder size = new LongAdder();
+
+  public static void main(String[] args) throws InterruptedException {
+    ConcurrentSortedLinkedList list = new ConcurrentSortedLinkedList();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      int offset = t;
+      threads[t] = new Thread(() -> {
+        for (int i = offset; i < 20; i += threads.length) {
+          list.insert(i);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    list.printAll();
+
+    list.deleteByValue(0);
+    list.deleteByValue(7);
+    list.deleteByValue(19);
+    list.insert(7);
+    list.insert(7);
+    list.printAll();
+    System.out.println("是否包含 7：" + list.findByValue(7) + "，是否包含 19：" + list.findByValue(19));
+  }
+
+  /**
+   * 按顺序插入元素
+   *
+   * @param value 元素值
+   */
+  public void insert(int value) {
+    while (true) {
+      Window window = find(value);
+      Node node = new Node(value, window.curr);
+      if (window.pred.next.compareAndSet(window.curr, node, false, false)) {
+        size.increment();
+        return;
+      }
+      // 前驱结点被修改或者被标记删除，重新查找位置
+    }
+  }
+
+  /**
+   * 删除一个值为 value 的结点
+   *
+   * @param value 元素值
+   * @return 是否删除成功
+   */
+  public boolean deleteByValue(int value) {
+    while (true) {
+      Window window = find(value);
+      Node curr = window.curr;
+      if (curr == null || curr.value != value) {
+        return false;
+      }
+      Node succ = curr.next.getReference();
+      // 逻辑删除：标记 curr，标记之后任何线程都不能在 curr 后面插入结点
+      if (!curr.next.compareAndSet(succ, succ, false, true)) {
+        continue;
+      }
+      // 物理删除：失败说明其他线程已经摘除了，或者会在遍历时摘除
+      window.pred.next.compareAndSet(curr, succ, false, false);
+      size.decrement();
+      return true;
+    }
+  }
+
+  /**
+   * 查找链表中是否存在值为 value 的结点
+   *
+   * @param value 元素值
+   * @return 是否存在
+   */
+  public boolean findByValue(int value) {
+    Node curr = head.next.getReference();
+    while (curr != null && curr.value <= value) {
+      if (curr.value == value && !curr.next.isMarked()) {
+        return true;
+      }
+      curr = curr.next.getReference();
+    }
+    return false;
+  }
+
+  /**
+   * 元素数量
+   *
+   * @return 元素数量
+   */
+  public int size() {
+    return size.intValue();
+  }
+
+  /**
+   * 查找第一个不小于 value 的结点及其前驱结点，沿途摘除被标记删除的结点
+   *
+   * @param value 元素值
+   * @return 前驱结点与当前结点，当前结点为 null 表示到达链表尾部
+   */
+  private Window find(int value) {
+    boolean[] marked = new boolean[1];
+    retry:
+    while (true) {
+      Node pred = head;
+      Node curr = pred.next.getReference();
+      while (true) {
+        if (curr == null) {
+          return new Window(pred, null);
+        }
+        Node succ = curr.next.get(marked);
+        while (marked[0]) {
+          // curr 已经被逻辑删除，尝试把它从 pred 之后摘除
+          if (!pred.next.compareAndSet(curr, succ, false, false)) {
+            continue retry;
+          }
+          curr = succ;
+          if (curr == null) {
+            return new Window(pred, null);
+          }
+          succ = curr.next.get(marked);
+        }
+        if (curr.value >= value) {
+          return new Window(pred, curr);
+        }
+        pred = curr;
+        curr = succ;
+      }
+    }
+  }
+
+  public void printAll() {
+    StringBuilder sb = new StringBuilder("有序链表的元素为：");
+    Node p = head.next.getReference();
+    while (p != null) {
+      if (!p.next.isMarked()) {
+        sb.append(p.value).append(" ");
+      }
+      p = p.next.getReference();
+    }
+    System.out.println(sb);
+  }
+
+  /**
+   * find 的查找结果
+   */
+  private static class Window {
+
+    private final Node pred;
+
+    private final Node curr;
+
+    Window(Node pred, Node curr) {
+      this.pred = pred;
+      this.curr = curr;
+    }
+
+  }
+
+  private static class Node {
+
+    private final int value;
+
+    /**
+     * 后继结点与当前结点的删除标记
+     */
+    private final AtomicMarkableReference<Node> next;
+
+    Node(int value, Node next) {
+      this.value = value;
+      this.next = new AtomicMarkableReference<>(next, false);
+    }
+
+  }
+
+}
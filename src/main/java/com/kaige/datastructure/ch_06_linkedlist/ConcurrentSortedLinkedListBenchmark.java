@@ -0,0 +1,145 @@
+package com.kaige.datastructure.ch_06_linkedlist;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 6-7 无锁有序链表与全局锁单链表的多线程吞吐量对比
+ * <p>
+ * 每个线程执行相同数量的操作：20% 插入、20% 删除、60% 查找。
+ * 删除的是本线程之前插入的元素，保证链表长度在压测过程中基本不变
+ */
+public class ConcurrentSortedLinkedListBenchmark {
+
+  /**
+   * 元素取值范围
+   */
+  private static final int keyRange = 512;
+
+  /**
+   * 每个线程的操作次数
+   */
+  private static final int opsPerThread = 50_000;
+
+  /**
+   * 压测的线程数
+   */
+  private static final int[] threadCounts = {1, 2, 4, 8};
+
+  // 单核环境下无锁链表没有优势，AtomicMarkableReference 多一次间接访问，遍历更慢；
+  // 多核环境下全局锁会让所有线程串行，无锁链表的吞吐量随线程数增长
+  public static void main(String[] args) throws InterruptedException {
+    // 预热
+    run(new LockFreeList(), 2);
+    run(new SynchronizedList(), 2);
+
+    for (int threads : threadCounts) {
+      double lockFree = run(new LockFreeList(), threads);
+      double synchronizedList = run(new SynchronizedList(), threads);
+      System.out.printf("线程数 = %d\t无锁链表：%.0f 次/ms\t全局锁链表：%.0f 次/ms%n", threads, lockFree,
+        synchronizedList);
+    }
+  }
+
+  /**
+   * 执行压测
+   *
+   * @return 吞吐量，每毫秒的操作次数
+   */
+  private static double run(SortedIntList list, int threads) throws InterruptedException {
+    for (int i = 0; i < keyRange; i += 2) {
+      list.insert(i);
+    }
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // 本线程插入、尚未删除的元素，按先进先出的顺序删除
+        int[] inserted = new int[opsPerThread];
+        int insertedHead = 0;
+        int insertedTail = 0;
+        try {
+          start.await();
+          for (int i = 0; i < opsPerThread; i++) {
+            int key = random.nextInt(keyRange);
+            int op = random.nextInt(10);
+            if (op < 2) {
+              list.insert(key);
+              inserted[insertedTail++] = key;
+            } else if (op < 4 && insertedHead < insertedTail) {
+              list.delete(inserted[insertedHead++]);
+            } else {
+              list.contains(key);
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          done.countDown();
+        }
+      }).start();
+    }
+    long begin = System.nanoTime();
+    start.countDown();
+    done.await();
+    double millis = (System.nanoTime() - begin) / 1_000_000.0;
+    return (double) threads * opsPerThread / millis;
+  }
+
+  private interface SortedIntList {
+
+    void insert(int value);
+
+    boolean delete(int value);
+
+    boolean contains(int value);
+
+  }
+
+  private static class LockFreeList implements SortedIntList {
+
+    private final ConcurrentSortedLinkedList list = new ConcurrentSortedLinkedList();
+
+    @Override
+    public void insert(int value) {
+      list.insert(value);
+    }
+
+    @Override
+    public boolean delete(int value) {
+      return list.deleteByValue(value);
+    }
+
+    @Override
+    public boolean contains(int value) {
+      return list.findByValue(value);
+    }
+
+  }
+
+  /**
+   * 使用一把全局锁包装 SinglyLinkedList
+   */
+  private static class SynchronizedList implements SortedIntList {
+
+    private final SinglyLinkedList list = new SinglyLinkedList();
+
+    @Override
+    public synchronized void insert(int value) {
+      list.insertInOrder(value);
+    }
+
+    @Override
+    public synchronized boolean delete(int value) {
+      return list.deleteByValue(value);
+    }
+
+    @Override
+    public synchronized boolean contains(int value) {
+      return list.findByValue(value) != null;
+    }
+
+  }
+
+}
@@ -0,0 +1,120 @@
+package com.kaige.datastructure.ch_06_linkedlist;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于 LongAdder 的统计计数器
+ * <p>
+ * LongAdder 内部按线程分散到多个单元累加，多个线程同时计数时不会争抢同一个变量，读取时再求和。
+ * 可以被多个缓存或者同一个缓存的多个段共享
+ */
+public class ConcurrentStatsCounter implements StatsCounter {
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  private final LongAdder evictionCount = new LongAdder();
+
+  private final LongAdder evictionWeight = new LongAdder();
+
+  private final LongAdder loadSuccessCount = new LongAdder();
+
+  private final LongAdder loadFailureCount = new LongAdder();
+
+  private final LongAdder totalLoadTime = new LongAdder();
+
+  /**
+   * get、add 的耗时分布，不记录耗时时为 null
+   */
+  private final LatencyHistogram getLatency;
+
+  private final LatencyHistogram addLatency;
+
+  /**
+   * 只统计次数，不记录耗时
+   */
+  public ConcurrentStatsCounter() {
+    this(false);
+  }
+
+  /**
+   * @param recordLatency 是否记录 get、add 的耗时分布
+   */
+  public ConcurrentStatsCounter(boolean recordLatency) {
+    getLatency = recordLatency ? new LatencyHistogram() : null;
+    addLatency = recordLatency ? new LatencyHistogram() : null;
+  }
+
+  @Override
+  public void recordHits(int count) {
+    hitCount.add(count);
+  }
+
+  @Override
+  public void recordMisses(int count) {
+    missCount.add(count);
+  }
+
+  @Override
+  public void recordEviction(int weight) {
+    evictionCount.increment();
+    evictionWeight.add(weight);
+  }
+
+  @Override
+  public void recordLoadSuccess(long loadTime) {
+    loadSuccessCount.increment();
+    totalLoadTime.add(loadTime);
+  }
+
+  @Override
+  public void recordLoadFailure(long loadTime) {
+    loadFailureCount.increment();
+    totalLoadTime.add(loadTime);
+  }
+
+  @Override
+  public boolean recordsLatency() {
+    return getLatency != null;
+  }
+
+  @Override
+  public void recordGetLatency(long nanos) {
+    if (getLatency != null) {
+      getLatency.record(nanos);
+    }
+  }
+
+  @Override
+  public void recordAddLatency(long nanos) {
+    if (addLatency != null) {
+      addLatency.record(nanos);
+    }
+  }
+
+  /**
+   * get 的耗时分布
+   *
+   * @return 耗时分布，不记录耗时时为 null
+   */
+  public LatencyHistogram getLatency() {
+    return getLatency;
+  }
+
+  /**
+   * add 的耗时分布
+   *
+   * @return 耗时分布，不记录耗时时为 null
+   */
+  public LatencyHistogram addLatency() {
+    return addLatency;
+  }
+
+  @Override
+  public CacheStats snapshot() {
+    return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), evictionWeight.sum(),
+      loadSuccessCount.sum(), loadFailureCount.sum(), totalLoadTime.sum(), 0);
+  }
+
+}
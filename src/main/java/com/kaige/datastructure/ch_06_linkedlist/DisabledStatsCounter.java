@@ -0,0 +1,48 @@
+package com.kaige.datastructure.ch_06_linkedlist;
+
+/**
+ * 不做任何统计的计数器，所有方法都是空操作
+ */
+enum DisabledStatsCounter implements StatsCounter {
+
+  INSTANCE;
+
+  @Override
+  public void recordHits(int count) {
+  }
+
+  @Override
+  public void recordMisses(int count) {
+  }
+
+  @Override
+  public void recordEviction(int weight) {
+  }
+
+  @Override
+  public void recordLoadSuccess(long loadTime) {
+  }
+
+  @Override
+  public void recordLoadFailure(long loadTime) {
+  }
+
+  @Override
+  public boolean recordsLatency() {
+    return false;
+  }
+
+  @Override
+  public void recordGetLatency(long nanos) {
+  }
+
+  @Override
+  public void recordAddLatency(long nanos) {
+  }
+
+  @Override
+  public CacheStats snapshot() {
+    return CacheStats.EMPTY;
+  }
+
+}
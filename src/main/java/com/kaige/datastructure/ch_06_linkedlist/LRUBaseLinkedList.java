@@ -13,6 +13,7 @@ import java.util.Objects;
  * 3. 当没有元素被访问时，又分两种情况：
  * - 链表已满，则删除链表尾部结点，将新元素插入到链表头部
  * - 链表未满，将元素插入到链表头部
+ * 4. 可以开启命中、未命中、淘汰次数以及 add 耗时分布的统计，默认关闭
  */
 public class LRUBaseLinkedList<T> {
   
@@ -35,6 +36,11 @@ public class LRUBaseLinkedList<T> {
    * 链表长度
    */
   private int length;
+
+  /**
+   * 统计计数器，默认不统计
+   */
+  private StatsCounter statsCounter = StatsCounter.disabled();
   
   /**
    * 构建默认容量的的缓存
@@ -66,20 +72,54 @@ public class LRUBaseLinkedList<T> {
     cache.add("a");
     cache.printAll();
 
+    cache.setStatsCounter(new ConcurrentStatsCounter());
+    cache.add("b");
+    cache.add("d");
+    System.out.println(cache.stats());
   }
 
   public void add(T data) {
+    if (statsCounter.recordsLatency()) {
+      long start = System.nanoTime();
+      doAdd(data);
+      statsCounter.recordAddLatency(System.nanoTime() - start);
+    } else {
+      doAdd(data);
+    }
+  }
+
+  /**
+   * 设置统计计数器
+   *
+   * @param statsCounter 计数器，StatsCounter.disabled() 表示不统计
+   */
+  public void setStatsCounter(StatsCounter statsCounter) {
+    this.statsCounter = Objects.requireNonNull(statsCounter);
+  }
+
+  /**
+   * 统计数据，当前权重为链表长度
+   *
+   * @return 统计数据快照
+   */
+  public CacheStats stats() {
+    return statsCounter.snapshot().withWeightedSize(length);
+  }
+
+  private void doAdd(T data) {
     // 查找执行元素的前一个元素
     SNode<T> prevNode = findPrevNode(data);
 
     if (prevNode == null) {
       // 元素不在链表中
+      statsCounter.recordMisses(1);
       if (length == capacity) {
         // 容量已满，则先删除链表最后一个结点，再插入元素到链表头部
         deleteElementAtEnd();
       }
     } else {
       // 元素找到了，则先删除元素结点，再在头部插入元素
+      statsCounter.recordHits(1);
       deleteElemOptim(prevNode);
     }
     // 将元素插入到头结点
@@ -148,6 +188,7 @@ public class LRUBaseLinkedList<T> {
   
     p.next = null;
     length--;
+    statsCounter.recordEviction(1);
   }
 
   public void printAll() {
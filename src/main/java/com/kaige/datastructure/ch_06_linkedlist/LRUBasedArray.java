@@ -2,11 +2,12 @@ package com.kaige.datastructure.ch_06_linkedlist;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * 6-3 基于数组的 LRU（最近最少使用策略） 缓存
  * <p>
- * 使用数组存储数据，借助 HashMap 记录元素索引值
+ * 使用数组存储数据，借助 HashMap 记录元素索引值，可以开启命中、未命中、淘汰次数以及访问耗时分布的统计，默认关闭
  */
 public class LRUBasedArray<T> {
   
@@ -34,15 +35,20 @@ public class LRUBasedArray<T> {
    * 缓存中元素的数量
    */
   private int count;
+
+  /**
+   * 统计计数器，默认不统计
+   */
+  private StatsCounter statsCounter = StatsCounter.disabled();
   
-  private LRUBasedArray(int capacity) {
+  public LRUBasedArray(int capacity) {
     this.capacity = capacity;
     value = (T[]) new Object[capacity];
     count = 0;
     holder = new HashMap<>(capacity);// 指定 map 的容量大小，防止其自动扩容
   }
   
-  private LRUBasedArray() {
+  public LRUBasedArray() {
     this(DEFAULT_CAPACITY);
   }
   
@@ -59,6 +65,12 @@ public class LRUBasedArray<T> {
     cache.offer("2321");
     cache.offer("2aaa321");
     System.out.println(cache);
+    cache.setStatsCounter(new ConcurrentStatsCounter());
+    for (int i = 0; i < 10; i++) {
+      cache.offer("k" + i % 4);
+    }
+    System.out.println(cache);
+    System.out.println(cache.stats());
     cache.offer(null);
 
   }
@@ -68,14 +80,42 @@ public class LRUBasedArray<T> {
    *
    * @param object 值
    */
-  private void offer(T object) {
+  public void offer(T object) {
     if (object == null) {
       throw new IllegalArgumentException("不支持 null 数据");
     }
-    
+    if (statsCounter.recordsLatency()) {
+      long start = System.nanoTime();
+      doOffer(object);
+      statsCounter.recordAddLatency(System.nanoTime() - start);
+    } else {
+      doOffer(object);
+    }
+  }
+
+  /**
+   * 设置统计计数器
+   *
+   * @param statsCounter 计数器，StatsCounter.disabled() 表示不统计
+   */
+  public void setStatsCounter(StatsCounter statsCounter) {
+    this.statsCounter = Objects.requireNonNull(statsCounter);
+  }
+
+  /**
+   * 统计数据，当前权重为元素数量
+   *
+   * @return 统计数据快照
+   */
+  public CacheStats stats() {
+    return statsCounter.snapshot().withWeightedSize(count);
+  }
+
+  private void doOffer(T object) {
     Integer index = holder.get(object);
     if (index == null) {
       // 数据不存在，则插入数据
+      statsCounter.recordMisses(1);
       if (isFull()) {
         // 缓存已满，删除最后一个元素，再插入数据到数组的头部
         // 删除最后一个元素，并且右移
@@ -88,6 +128,7 @@ public class LRUBasedArray<T> {
 
     } else {
       // 数据存在，则更新数据
+      statsCounter.recordHits(1);
       update(index);
     }
 
@@ -110,8 +151,9 @@ public class LRUBasedArray<T> {
    */
   private void removeAndCache(T object) {
     // 先删除最后一个元素数据
-    T lastValue = value[count--];
+    T lastValue = value[--count];
     holder.remove(lastValue);
+    statsCounter.recordEviction(1);
     // 右移所有元素，并将新元素缓存到头部
     cache(object, count);
   
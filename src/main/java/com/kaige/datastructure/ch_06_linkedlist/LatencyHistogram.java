@@ -0,0 +1,106 @@
+package com.kaige.datastructure.ch_06_linkedlist;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HDR 风格的耗时直方图
+ * <p>
+ * 1. 小于 32 的值每个值一个桶；之后每个 2 的幂次方区间 [2^e, 2^(e+1)) 平均分为 32 个桶，相对误差不超过 1/32；
+ * 2. 桶的下标只需要计算最高位和最高位之后的 5 位，记录是 O(1) 的一次原子加法，与记录的值的大小无关；
+ * 3. 一共 1888 个桶，覆盖 long 的全部正数范围，多个线程可以同时记录
+ */
+public class LatencyHistogram {
+
+  /**
+   * 每个区间的桶数量的位数
+   */
+  private static final int SUB_BUCKET_BITS = 5;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+
+  /**
+   * 记录一个值，负数按 0 记录
+   *
+   * @param value 值，单位纳秒
+   */
+  public void record(long value) {
+    counts.incrementAndGet(indexOf(Math.max(0, value)));
+  }
+
+  /**
+   * 记录的总次数
+   *
+   * @return 次数
+   */
+  public long count() {
+    long count = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * 百分位数
+   *
+   * @param percentile 百分位，范围 0~100
+   * @return 不超过该百分位的最大值，所在桶的上界，没有记录时返回 0
+   */
+  public long percentile(double percentile) {
+    long total = count();
+    if (total == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+    long seen = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      seen += counts.get(i);
+      if (seen >= target) {
+        return highestValueOf(i);
+      }
+    }
+    return highestValueOf(counts.length() - 1);
+  }
+
+  /**
+   * 清空所有记录
+   */
+  public void reset() {
+    for (int i = 0; i < counts.length(); i++) {
+      counts.set(i, 0);
+    }
+  }
+
+  /**
+   * 值所在的桶
+   */
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int mantissa = (int) (value >>> shift) - SUB_BUCKETS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + mantissa;
+  }
+
+  /**
+   * 桶中的最大值
+   */
+  static long highestValueOf(int index) {
+    int group = index >>> SUB_BUCKET_BITS;
+    if (group == 0) {
+      return index;
+    }
+    long lowest = (long) ((index & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << (group - 1);
+    return lowest + (1L << (group - 1)) - 1;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("次数 %d，p50 %dns，p99 %dns，p99.9 %dns，最大 %dns",
+      count(), percentile(50), percentile(99), percentile(99.9), percentile(100));
+  }
+
+}
@@ -200,7 +200,7 @@ public class SinglyLinkedList {
    */
   public Node findByValue(int value) {
     Node p = head;
-    while (p != null && p.data == value) {
+    while (p != null && p.data != value) {
       p = p.next;
     }
     return p;
@@ -267,6 +267,25 @@ public class SinglyLinkedList {
     }
   }
 
+  /**
+   * 按照从小到大的顺序插入元素，链表需要保持有序
+   *
+   * @param value 元素值
+   */
+  public void insertInOrder(int value) {
+    Node node = new Node(value, null);
+    if (head == null || head.data >= value) {
+      insertToHead(node);
+      return;
+    }
+    // 找到最后一个小于 value 的结点
+    Node p = head;
+    while (p.next != null && p.next.data < value) {
+      p = p.next;
+    }
+    insertAfter(p, node);
+  }
+
   /**
    * 指定结点元素之后插入值为 value 的结点
    *
@@ -374,9 +393,9 @@ public class SinglyLinkedList {
     if (head == null) {
       return false;
     }
-    // 只有头结点的情况
+    // 删除的是头结点的情况
     if (head.data == value) {
-      head = null;
+      head = head.next;
       return true;
     }
 
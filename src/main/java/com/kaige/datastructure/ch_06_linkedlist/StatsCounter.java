@@ -0,0 +1,83 @@
+package com.kaige.datastructure.ch_06_linkedlist;
+
+/**
+ * 缓存统计计数器
+ * <p>
+ * 缓存在命中、未命中、淘汰、加载时调用对应的方法。默认使用 disabled()，所有方法都是空操作，
+ * 也不会读取时钟，不需要统计时热点路径上没有额外开销
+ */
+public interface StatsCounter {
+
+  /**
+   * 记录命中
+   *
+   * @param count 命中次数
+   */
+  void recordHits(int count);
+
+  /**
+   * 记录未命中
+   *
+   * @param count 未命中次数
+   */
+  void recordMisses(int count);
+
+  /**
+   * 记录一次淘汰
+   *
+   * @param weight 被淘汰元素的权重
+   */
+  void recordEviction(int weight);
+
+  /**
+   * 记录一次成功的加载
+   *
+   * @param loadTime 加载耗时，单位纳秒
+   */
+  void recordLoadSuccess(long loadTime);
+
+  /**
+   * 记录一次失败的加载
+   *
+   * @param loadTime 加载耗时，单位纳秒
+   */
+  void recordLoadFailure(long loadTime);
+
+  /**
+   * 是否记录 get、add 的耗时，返回 false 时缓存不会读取时钟
+   *
+   * @return 是否记录耗时
+   */
+  boolean recordsLatency();
+
+  /**
+   * 记录一次 get 的耗时
+   *
+   * @param nanos 耗时，单位纳秒
+   */
+  void recordGetLatency(long nanos);
+
+  /**
+   * 记录一次 add 的耗时
+   *
+   * @param nanos 耗时，单位纳秒
+   */
+  void recordAddLatency(long nanos);
+
+  /**
+   * 当前的统计数据
+   *
+   * @return 统计数据快照
+   */
+  CacheStats snapshot();
+
+  /**
+   * 不做任何统计的计数器
+   *
+   * @return 计数器
+   */
+  static StatsCounter disabled() {
+    return DisabledStatsCounter.INSTANCE;
+  }
+
+}
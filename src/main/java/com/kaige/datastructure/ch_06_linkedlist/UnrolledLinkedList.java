@@ -0,0 +1,338 @@
+package com.kaige.datastructure.ch_06_linkedlist;
+
+/**
+ * 6-4 展开链表（Unrolled Linked List）
+ * <p>
+ * 1）每个结点存储一小段 int 数组，而不是单个元素，减少结点数量与指针跳转次数，遍历时对 CPU 缓存更友好；
+ * 2）结点满时分裂为两个半满的结点；
+ * 3）结点中元素少于一半时，与后继结点合并，或者从后继结点借一部分元素
+ */
+public class UnrolledLinkedList {
+
+  /**
+   * 默认的结点容量
+   */
+  private static final int DEFAULT_BLOCK_SIZE = 32;
+
+  /**
+   * 每个结点的容量
+   */
+  private final int blockSize;
+
+  private Node head = null;
+
+  private Node tail = null;
+
+  /**
+   * 元素总数
+   */
+  private int size;
+
+  /**
+   * 指定结点容量
+   *
+   * @param blockSize 结点容量，至少为 2
+   */
+  public UnrolledLinkedList(int blockSize) {
+    if (blockSize < 2) {
+      throw new IllegalArgumentException("结点容量至少为 2：" + blockSize);
+    }
+    this.blockSize = blockSize;
+  }
+
+  public UnrolledLinkedList() {
+    this(DEFAULT_BLOCK_SIZE);
+  }
+
+  public static void main(String[] args) {
+    UnrolledLinkedList linkedList = new UnrolledLinkedList(4);
+    for (int i = 1; i <= 10; i++) {
+      linkedList.insertTail(i);
+    }
+    linkedList.printAll();
+
+    linkedList.insertToHead(0);
+    linkedList.insertAfter(3, 100);
+    linkedList.insertBefore(0, -1);
+    linkedList.printAll();
+
+    System.out.println("索引 4 的元素：" + linkedList.findByIndex(4));
+    System.out.println("元素 100 的索引：" + linkedList.findByValue(100));
+
+    linkedList.deleteByValue(100);
+    linkedList.deleteByValue(5);
+    linkedList.deleteByValue(6);
+    linkedList.deleteByValue(7);
+    linkedList.printAll();
+  }
+
+  /**
+   * 元素总数
+   *
+   * @return 元素总数
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * 查找元素第一次出现的索引
+   *
+   * @param value 值
+   * @return 元素索引，找不到就返回 -1
+   */
+  public int findByValue(int value) {
+    int index = 0;
+    for (Node p = head; p != null; p = p.next) {
+      for (int i = 0; i < p.count; i++) {
+        if (p.items[i] == value) {
+          return index + i;
+        }
+      }
+      index += p.count;
+    }
+    return -1;
+  }
+
+  /**
+   * 根据索引查找元素，按结点跳跃，不需要逐个元素遍历
+   *
+   * @param index 索引
+   * @return 元素，查不到就返回 -1
+   */
+  public int findByIndex(int index) {
+    if (index < 0 || index >= size) {
+      return -1;
+    }
+    Node p = head;
+    while (index >= p.count) {
+      index -= p.count;
+      p = p.next;
+    }
+    return p.items[index];
+  }
+
+  /**
+   * 表头插入
+   *
+   * @param value 插入元素到头部
+   */
+  public void insertToHead(int value) {
+    insert(0, value);
+  }
+
+  /**
+   * 插入元素到链尾，时间复杂度 O(1)
+   *
+   * @param value 元素值
+   */
+  public void insertTail(int value) {
+    insert(size, value);
+  }
+
+  /**
+   * 在指定索引的元素之后插入值为 value 的元素
+   *
+   * @param index 指定元素的索引
+   * @param value 值
+   */
+  public void insertAfter(int index, int value) {
+    if (index < 0 || index >= size) {
+      return;
+    }
+    insert(index + 1, value);
+  }
+
+  /**
+   * 在指定索引的元素之前插入值为 value 的元素
+   *
+   * @param index 指定元素的索引
+   * @param value 值
+   */
+  public void insertBefore(int index, int value) {
+    if (index < 0 || index >= size) {
+      return;
+    }
+    insert(index, value);
+  }
+
+  /**
+   * 在指定位置插入元素，所在结点已满时先分裂结点
+   *
+   * @param index 位置，范围 0 ~ size
+   * @param value 元素值
+   */
+  public void insert(int index, int value) {
+    if (index < 0 || index > size) {
+      throw new IllegalArgumentException("插入失败，索引的范围应该是为： 0 <= index <= " + size);
+    }
+    if (head == null) {
+      head = tail = new Node(blockSize);
+    }
+
+    Node p;
+    if (index == size) {
+      // 尾部插入，直接定位到尾结点
+      p = tail;
+      index = p.count;
+    } else {
+      p = head;
+      while (index >= p.count) {
+        index -= p.count;
+        p = p.next;
+      }
+    }
+
+    if (p.count == blockSize) {
+      // 结点已满，分裂出一个新结点，后一半元素搬到新结点
+      Node newNode = new Node(blockSize);
+      int half = blockSize / 2;
+      System.arraycopy(p.items, half, newNode.items, 0, blockSize - half);
+      newNode.count = blockSize - half;
+      p.count = half;
+      newNode.next = p.next;
+      p.next = newNode;
+      if (tail == p) {
+        tail = newNode;
+      }
+      if (index > half) {
+        index -= half;
+        p = newNode;
+      }
+    }
+
+    System.arraycopy(p.items, index, p.items, index + 1, p.count - index);
+    p.items[index] = value;
+    p.count++;
+    size++;
+  }
+
+  /**
+   * 删除第一个值为 value 的元素
+   *
+   * @param value 元素值
+   * @return 是否删除成功
+   */
+  public boolean deleteByValue(int value) {
+    Node prev = null;
+    for (Node p = head; p != null; prev = p, p = p.next) {
+      for (int i = 0; i < p.count; i++) {
+        if (p.items[i] == value) {
+          deleteAt(prev, p, i);
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 删除指定索引的元素
+   *
+   * @param index 索引
+   * @return 是否删除成功
+   */
+  public boolean deleteByIndex(int index) {
+    if (index < 0 || index >= size) {
+      return false;
+    }
+    Node prev = null;
+    Node p = head;
+    while (index >= p.count) {
+      index -= p.count;
+      prev = p;
+      p = p.next;
+    }
+    deleteAt(prev, p, index);
+    return true;
+  }
+
+  /**
+   * 删除结点 p 中偏移为 offset 的元素，结点元素不足一半时与后继结点合并或借元素
+   *
+   * @param prev   p 的前驱结点，p 为头结点时为 null
+   * @param p      结点
+   * @param offset 结点内偏移
+   */
+  private void deleteAt(Node prev, Node p, int offset) {
+    System.arraycopy(p.items, offset + 1, p.items, offset, p.count - offset - 1);
+    p.count--;
+    size--;
+
+    if (p.count == 0) {
+      // 结点为空，直接摘除
+      unlink(prev, p);
+      return;
+    }
+
+    int minCount = blockSize / 2;
+    Node next = p.next;
+    if (p.count >= minCount || next == null) {
+      return;
+    }
+    if (p.count + next.count <= blockSize) {
+      // 合并后继结点
+      System.arraycopy(next.items, 0, p.items, p.count, next.count);
+      p.count += next.count;
+      unlink(p, next);
+    } else {
+      // 从后继结点借元素，使两个结点元素数量接近
+      int borrow = (next.count - p.count) / 2;
+      System.arraycopy(next.items, 0, p.items, p.count, borrow);
+      p.count += borrow;
+      System.arraycopy(next.items, borrow, next.items, 0, next.count - borrow);
+      next.count -= borrow;
+    }
+  }
+
+  /**
+   * 摘除结点 p
+   *
+   * @param prev p 的前驱结点，p 为头结点时为 null
+   * @param p    结点
+   */
+  private void unlink(Node prev, Node p) {
+    if (prev == null) {
+      head = p.next;
+    } else {
+      prev.next = p.next;
+    }
+    if (tail == p) {
+      tail = prev;
+    }
+    p.next = null;
+  }
+
+  public void printAll() {
+    StringBuilder sb = new StringBuilder("展开链表的元素为：");
+    for (Node p = head; p != null; p = p.next) {
+      sb.append("[");
+      for (int i = 0; i < p.count; i++) {
+        sb.append(p.items[i]);
+        if (i < p.count - 1) {
+          sb.append(" ");
+        }
+      }
+      sb.append("]");
+      if (p.next != null) {
+        sb.append(" -> ");
+      }
+    }
+    System.out.println(sb);
+  }
+
+  static class Node {
+
+    private final int[] items;
+
+    private int count;
+
+    private Node next;
+
+    Node(int blockSize) {
+      this.items = new int[blockSize];
+    }
+
+  }
+
+}
@@ -0,0 +1,63 @@
+package com.kaige.datastructure.ch_06_linkedlist;
+
+import java.util.Random;
+
+/**
+ * 6-5 展开链表与单链表的遍历性能对比
+ */
+public class UnrolledLinkedListBenchmark {
+
+  /**
+   * 链表元素数量
+   */
+  private static final int listSize = 1_000_000;
+
+  /**
+   * 随机按索引查找的次数
+   */
+  private static final int lookups = 1_000;
+
+  // 单链表	listSize = 1000000	lookups = 1000	耗时：2258ms
+  // 展开链表	listSize = 1000000	lookups = 1000	耗时：413ms
+  public static void main(String[] args) {
+    SinglyLinkedList singly = new SinglyLinkedList();
+    UnrolledLinkedList unrolled = new UnrolledLinkedList();
+    for (int i = listSize - 1; i >= 0; i--) {
+      singly.insertToHead(i);
+    }
+    for (int i = 0; i < listSize; i++) {
+      unrolled.insertTail(i);
+    }
+
+    // 预热
+    testSingly(singly, new Random(1), lookups / 10);
+    testUnrolled(unrolled, new Random(1), lookups / 10);
+
+    long start = System.currentTimeMillis();
+    long sum = testSingly(singly, new Random(42), lookups);
+    System.out.println("单链表\tlistSize = " + listSize + "\tlookups = " + lookups + "\t校验和：" + sum + "\t耗时："
+      + (System.currentTimeMillis() - start) + "ms");
+
+    start = System.currentTimeMillis();
+    sum = testUnrolled(unrolled, new Random(42), lookups);
+    System.out.println("展开链表\tlistSize = " + listSize + "\tlookups = " + lookups + "\t校验和：" + sum + "\t耗时："
+      + (System.currentTimeMillis() - start) + "ms");
+  }
+
+  private static long testSingly(SinglyLinkedList list, Random random, int lookups) {
+    long sum = 0;
+    for (int i = 0; i < lookups; i++) {
+      sum += list.findByIndex(random.nextInt(listSize)).getData();
+    }
+    return sum;
+  }
+
+  private static long testUnrolled(UnrolledLinkedList list, Random random, int lookups) {
+    long sum = 0;
+    for (int i = 0; i < lookups; i++) {
+      sum += list.findByIndex(random.nextInt(listSize));
+    }
+    return sum;
+  }
+
+}
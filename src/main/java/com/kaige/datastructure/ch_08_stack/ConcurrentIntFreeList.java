@@ -0,0 +1,140 @@
+package com.kaige.datastructure.ch_08_stack;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 8-6 基于下标的无锁栈，用作多线程共享的空闲槽位列表
+ * <p>
+ * 特性：
+ * 1. 保存 0 ~ capacity-1 的槽位编号，next 数组记录每个槽位在栈中的下一个槽位，入栈、出栈不创建任何对象；
+ * 2. 与 TreiberStack 一样通过 CAS 修改栈顶，但槽位编号会被反复入栈，存在 ABA 问题：
+ * 线程 1 读到栈顶 A、下一个 B，准备 CAS 成 B；此时线程 2 弹出 A、B，再压回 A，栈顶又是 A，
+ * 线程 1 的 CAS 仍然成功，却把已经不在栈中的 B 变成了栈顶；
+ * 3. 解决办法是给栈顶加上版本号：高 32 位是版本号，低 32 位是槽位编号，每次修改版本号加一，
+ * 上面的场景中栈顶的版本号已经变化，线程 1 的 CAS 会失败
+ */
+public class ConcurrentIntFreeList {
+
+  /**
+   * 空栈的槽位编号
+   */
+  private static final int EMPTY = -1;
+
+  /**
+   * 每个槽位在栈中的下一个槽位
+   */
+  private final AtomicIntegerArray next;
+
+  /**
+   * 栈顶：版本号与槽位编号
+   */
+  private final AtomicLong head = new AtomicLong(pack(0, EMPTY));
+
+  /**
+   * @param capacity 槽位数量
+   * @param full     是否初始放入所有槽位，出栈顺序为 0、1、2 ...
+   */
+  public ConcurrentIntFreeList(int capacity, boolean full) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("槽位数量必须大于 0：" + capacity);
+    }
+    next = new AtomicIntegerArray(capacity);
+    if (full) {
+      for (int i = capacity - 1; i >= 0; i--) {
+        push(i);
+      }
+    }
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    int slots = 16;
+    ConcurrentIntFreeList freeList = new ConcurrentIntFreeList(slots, true);
+    // 记录每个槽位当前是否被占用，同一个槽位被两个线程同时拿到即为错误
+    AtomicIntegerArray owned = new AtomicIntegerArray(slots);
+    int[] conflicts = new int[1];
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 100_000; i++) {
+          int slot = freeList.pop();
+          if (slot == EMPTY) {
+            continue;
+          }
+          if (!owned.compareAndSet(slot, 0, 1)) {
+            synchronized (conflicts) {
+              conflicts[0]++;
+            }
+          }
+          owned.set(slot, 0);
+          freeList.push(slot);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    int count = 0;
+    while (freeList.pop() != EMPTY) {
+      count++;
+    }
+    System.out.println("冲突次数：" + conflicts[0] + "，剩余槽位：" + count);
+  }
+
+  /**
+   * 归还槽位，同一个槽位在出栈之前不能重复入栈
+   *
+   * @param slot 槽位编号
+   */
+  public void push(int slot) {
+    if (slot < 0 || slot >= next.length()) {
+      throw new IllegalArgumentException("槽位编号超出范围：" + slot);
+    }
+    long oldHead;
+    do {
+      oldHead = head.get();
+      next.set(slot, indexOf(oldHead));
+    } while (!head.compareAndSet(oldHead, pack(versionOf(oldHead) + 1, slot)));
+  }
+
+  /**
+   * 取出一个空闲槽位
+   *
+   * @return 槽位编号，没有空闲槽位时返回 -1
+   */
+  public int pop() {
+    long oldHead;
+    int slot;
+    do {
+      oldHead = head.get();
+      slot = indexOf(oldHead);
+      if (slot == EMPTY) {
+        return EMPTY;
+      }
+      // slot 可能已经被其他线程弹出并修改了 next，此时版本号也已经变化，下面的 CAS 会失败
+    } while (!head.compareAndSet(oldHead, pack(versionOf(oldHead) + 1, next.get(slot))));
+    return slot;
+  }
+
+  public boolean isEmpty() {
+    return indexOf(head.get()) == EMPTY;
+  }
+
+  public int capacity() {
+    return next.length();
+  }
+
+  private static long pack(int version, int index) {
+    return ((long) version << 32) | (index & 0xFFFFFFFFL);
+  }
+
+  private static int versionOf(long head) {
+    return (int) (head >>> 32);
+  }
+
+  private static int indexOf(long head) {
+    return (int) head;
+  }
+
+}
@@ -0,0 +1,230 @@
+package com.kaige.datastructure.ch_08_stack;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicStampedReference;
+
+/**
+ * 8-8 消除回退栈（Elimination-Backoff Stack）
+ * <p>
+ * 特性：
+ * 1. 基础是 Treiber 无锁栈，没有竞争时与 TreiberStack 完全一样，只 CAS 栈顶；
+ * 2. 栈顶 CAS 失败说明有竞争，此时不立即重试，而是到消除数组中随机选一个交换槽等待一小段时间；
+ * 3. 一个入栈和一个出栈在同一个交换槽相遇时直接交换元素：入栈的元素被出栈拿走，效果等同于先入栈再出栈，
+ * 两个操作都不需要访问栈顶；
+ * 4. 等待超时或者遇到同类操作时回到栈顶重试。线程越多，入栈、出栈越容易相遇，栈顶的竞争越小
+ */
+public class EliminationBackoffStack<T> {
+
+  /**
+   * 出栈线程交换出去的标记，与入栈的元素区分
+   */
+  private static final Object POP = new Object();
+
+  /**
+   * 交换超时的标记
+   */
+  private static final Object TIMEOUT = new Object();
+
+  /**
+   * 默认在交换槽中等待的时间，单位纳秒
+   */
+  private static final long DEFAULT_TIMEOUT_NANOS = 10_000;
+
+  /**
+   * 栈顶
+   */
+  private final AtomicReference<Node<T>> top = new AtomicReference<>();
+
+  /**
+   * 消除数组
+   */
+  private final Exchanger[] eliminationArray;
+
+  /**
+   * 在交换槽中等待的时间
+   */
+  private final long timeoutNanos;
+
+  /**
+   * @param eliminationSize 消除数组的大小，一般不超过 CPU 核数的一半
+   * @param timeoutNanos    在交换槽中等待的时间，单位纳秒
+   */
+  public EliminationBackoffStack(int eliminationSize, long timeoutNanos) {
+    if (eliminationSize <= 0) {
+      throw new IllegalArgumentException("消除数组的大小必须大于 0");
+    }
+    eliminationArray = new Exchanger[eliminationSize];
+    for (int i = 0; i < eliminationSize; i++) {
+      eliminationArray[i] = new Exchanger();
+    }
+    this.timeoutNanos = timeoutNanos;
+  }
+
+  public EliminationBackoffStack() {
+    this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), DEFAULT_TIMEOUT_NANOS);
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    EliminationBackoffStack<Integer> stack = new EliminationBackoffStack<>();
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      int offset = t * 10_000;
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          stack.push(offset + i);
+          if (i % 2 == 1) {
+            stack.pop();
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    int count = 0;
+    while (stack.pop() != null) {
+      count++;
+    }
+    System.out.println("8 个线程各入栈 10000 个、出栈 5000 个元素，剩余数量：" + count);
+  }
+
+  /**
+   * 入栈
+   *
+   * @param e 元素，不能为 null
+   */
+  public void push(T e) {
+    if (e == null) {
+      throw new IllegalArgumentException("不支持 null 数据");
+    }
+    Node<T> newNode = new Node<>(e);
+    while (true) {
+      Node<T> oldTop = top.get();
+      newNode.next = oldTop;
+      if (top.compareAndSet(oldTop, newNode)) {
+        return;
+      }
+      // 栈顶有竞争，尝试与一个出栈操作相互消除
+      if (visit(e) == POP) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * 出栈
+   *
+   * @return 栈顶元素，栈为空时返回 null
+   */
+  @SuppressWarnings("unchecked")
+  public T pop() {
+    while (true) {
+      Node<T> oldTop = top.get();
+      if (oldTop == null) {
+        return null;
+      }
+      if (top.compareAndSet(oldTop, oldTop.next)) {
+        return oldTop.data;
+      }
+      // 栈顶有竞争，尝试与一个入栈操作相互消除
+      Object other = visit(POP);
+      if (other != POP && other != TIMEOUT) {
+        return (T) other;
+      }
+    }
+  }
+
+  public boolean isEmpty() {
+    return top.get() == null;
+  }
+
+  /**
+   * 随机选一个交换槽交换
+   */
+  private Object visit(Object item) {
+    int index = eliminationArray.length == 1 ? 0 : ThreadLocalRandom.current().nextInt(eliminationArray.length);
+    return eliminationArray[index].exchange(item, timeoutNanos);
+  }
+
+  /**
+   * 无锁的交换槽：引用是交换的元素，版本号是槽的状态
+   */
+  private static class Exchanger {
+
+    private static final int EMPTY = 0;
+
+    /**
+     * 一个线程放入了元素，等待另一个线程
+     */
+    private static final int WAITING = 1;
+
+    /**
+     * 另一个线程已经取走元素并放入了自己的元素
+     */
+    private static final int BUSY = 2;
+
+    private final AtomicStampedReference<Object> slot = new AtomicStampedReference<>(null, EMPTY);
+
+    /**
+     * 交换元素
+     *
+     * @param myItem       本线程的元素
+     * @param timeoutNanos 等待时间
+     * @return 对方的元素，超时返回 TIMEOUT
+     */
+    Object exchange(Object myItem, long timeoutNanos) {
+      long deadline = System.nanoTime() + timeoutNanos;
+      int[] stampHolder = {EMPTY};
+      while (System.nanoTime() - deadline < 0) {
+        Object yourItem = slot.get(stampHolder);
+        switch (stampHolder[0]) {
+          case EMPTY:
+            // 先到的线程放入元素，等待对方
+            if (slot.compareAndSet(yourItem, myItem, EMPTY, WAITING)) {
+              while (System.nanoTime() - deadline < 0) {
+                yourItem = slot.get(stampHolder);
+                if (stampHolder[0] == BUSY) {
+                  slot.set(null, EMPTY);
+                  return yourItem;
+                }
+              }
+              // 超时，撤回元素；撤回失败说明对方刚好到达，完成交换
+              if (slot.compareAndSet(myItem, null, WAITING, EMPTY)) {
+                return TIMEOUT;
+              }
+              yourItem = slot.getReference();
+              slot.set(null, EMPTY);
+              return yourItem;
+            }
+            break;
+          case WAITING:
+            // 后到的线程取走对方的元素，放入自己的元素
+            if (slot.compareAndSet(yourItem, myItem, WAITING, BUSY)) {
+              return yourItem;
+            }
+            break;
+          default:
+            // 其他两个线程正在交换
+            break;
+        }
+      }
+      return TIMEOUT;
+    }
+
+  }
+
+  private static class Node<T> {
+
+    private final T data;
+
+    private Node<T> next;
+
+    Node(T data) {
+      this.data = data;
+    }
+
+  }
+
+}
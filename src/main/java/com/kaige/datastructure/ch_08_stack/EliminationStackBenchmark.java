@@ -0,0 +1,142 @@
+package com.kaige.datastructure.ch_08_stack;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 8-9 消除回退栈的扩展性测试
+ * <p>
+ * 线程数从 1 增加到 32，每个线程循环执行一次入栈、一次出栈，对比全局锁顺序栈、Treiber 无锁栈与消除回退栈的吞吐量
+ */
+public class EliminationStackBenchmark {
+
+  /**
+   * 每个线程的入栈、出栈次数
+   */
+  private static final int opsPerThread = 200_000;
+
+  /**
+   * 压测的线程数
+   */
+  private static final int[] threadCounts = {1, 2, 4, 8, 16, 32};
+
+  /**
+   * 消除数组的大小
+   */
+  private static final int eliminationSize = 4;
+
+  // 单核环境（结果单位：次/ms）：
+  // 线程数 = 1   全局锁顺序栈 13796  Treiber 栈 38009  消除回退栈 36329
+  // 线程数 = 2   全局锁顺序栈 45342  Treiber 栈 47467  消除回退栈 45230
+  // 线程数 = 4   全局锁顺序栈 45534  Treiber 栈 46318  消除回退栈 42472
+  // 线程数 = 8   全局锁顺序栈 35736  Treiber 栈 40779  消除回退栈 40772
+  // 线程数 = 16  全局锁顺序栈 34564  Treiber 栈 43436  消除回退栈 39881
+  // 线程数 = 32  全局锁顺序栈 34331  Treiber 栈 39838  消除回退栈 43683
+  // 单核上线程轮流执行，栈顶 CAS 很少失败，消除数组几乎用不上，消除回退栈与 Treiber 栈持平，说明没有竞争时它没有额外开销；
+  // 全局锁顺序栈在 8 个线程以上下降约 25%。多核环境下线程越多，Treiber 栈在栈顶上的 CAS 失败越多，
+  // 消除回退栈把相遇的入栈、出栈在消除数组中直接配对，吞吐量可以随线程数继续增长
+  public static void main(String[] args) throws InterruptedException {
+    // 预热
+    run(new SynchronizedArrayStack(), 4);
+    run(new LockFreeStack(), 4);
+    run(new EliminationStack(), 4);
+
+    for (int threads : threadCounts) {
+      double synchronizedStack = run(new SynchronizedArrayStack(), threads);
+      double treiber = run(new LockFreeStack(), threads);
+      double elimination = run(new EliminationStack(), threads);
+      System.out.printf("线程数 = %d\t全局锁顺序栈：%.0f 次/ms\tTreiber 栈：%.0f 次/ms\t消除回退栈：%.0f 次/ms%n",
+        threads, synchronizedStack, treiber, elimination);
+    }
+  }
+
+  /**
+   * 执行压测
+   *
+   * @return 吞吐量，每毫秒的操作次数，入栈、出栈各算一次
+   */
+  private static double run(ConcurrentStack<Integer> stack, int threads) throws InterruptedException {
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      Integer value = t;
+      new Thread(() -> {
+        try {
+          start.await();
+          for (int i = 0; i < opsPerThread; i++) {
+            stack.push(value);
+            stack.pop();
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          done.countDown();
+        }
+      }).start();
+    }
+    long begin = System.nanoTime();
+    start.countDown();
+    done.await();
+    double millis = (System.nanoTime() - begin) / 1_000_000.0;
+    return 2.0 * threads * opsPerThread / millis;
+  }
+
+  private interface ConcurrentStack<T> {
+
+    void push(T value);
+
+    T pop();
+
+  }
+
+  /**
+   * 使用一把全局锁包装 StackBasedOnArray
+   */
+  private static class SynchronizedArrayStack implements ConcurrentStack<Integer> {
+
+    private final StackBasedOnArray<Integer> stack = new StackBasedOnArray<>();
+
+    @Override
+    public synchronized void push(Integer value) {
+      stack.push(value);
+    }
+
+    @Override
+    public synchronized Integer pop() {
+      return stack.pop();
+    }
+
+  }
+
+  private static class LockFreeStack implements ConcurrentStack<Integer> {
+
+    private final TreiberStack<Integer> stack = new TreiberStack<>();
+
+    @Override
+    public void push(Integer value) {
+      stack.push(value);
+    }
+
+    @Override
+    public Integer pop() {
+      return stack.pop();
+    }
+
+  }
+
+  private static class EliminationStack implements ConcurrentStack<Integer> {
+
+    private final EliminationBackoffStack<Integer> stack = new EliminationBackoffStack<>(eliminationSize, 10_000);
+
+    @Override
+    public void push(Integer value) {
+      stack.push(value);
+    }
+
+    @Override
+    public Integer pop() {
+      return stack.pop();
+    }
+
+  }
+
+}
@@ -0,0 +1,104 @@
+package com.kaige.datastructure.ch_08_stack;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * 8-4 基于 int 数组的栈
+ * <p>
+ * 特性：
+ * 1. 直接存储 int，入栈、出栈没有装箱拆箱，也不会产生 Integer 对象；
+ * 2. 支持动态扩容，非线程安全，多线程共享请使用 ConcurrentIntFreeList
+ */
+public class IntStack {
+
+  private static final int DEFAULT_CAPACITY = 10;
+
+  private int[] data;
+
+  /**
+   * 栈中元素的个数
+   */
+  private int count;
+
+  public IntStack(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("栈容量不能小于 0：" + capacity);
+    }
+    data = new int[capacity];
+  }
+
+  public IntStack() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public static void main(String[] args) {
+    IntStack stack = new IntStack(2);
+    stack.push(1);
+    stack.push(2);
+    stack.push(3);
+    stack.printAll();
+    System.out.println("pop: " + stack.pop());
+    System.out.println("peek: " + stack.peek());
+    stack.printAll();
+  }
+
+  /**
+   * 入栈，容量不够时扩容为原来的 2 倍
+   *
+   * @param e 元素
+   */
+  public void push(int e) {
+    if (count == data.length) {
+      data = Arrays.copyOf(data, Math.max(DEFAULT_CAPACITY, data.length * 2));
+    }
+    data[count++] = e;
+  }
+
+  /**
+   * 出栈
+   *
+   * @return 栈顶元素
+   * @throws NoSuchElementException 栈为空
+   */
+  public int pop() {
+    if (count == 0) {
+      throw new NoSuchElementException("栈为空");
+    }
+    return data[--count];
+  }
+
+  /**
+   * 查看栈顶元素，不出栈
+   *
+   * @return 栈顶元素
+   * @throws NoSuchElementException 栈为空
+   */
+  public int peek() {
+    if (count == 0) {
+      throw new NoSuchElementException("栈为空");
+    }
+    return data[count - 1];
+  }
+
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  public int size() {
+    return count;
+  }
+
+  public void clear() {
+    count = 0;
+  }
+
+  public void printAll() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      sb.append(data[i]).append(" ");
+    }
+    System.out.println(sb);
+  }
+
+}
@@ -0,0 +1,584 @@
+package com.kaige.datastructure.ch_08_stack;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 8-10 面向大量会话的浏览历史引擎
+ * <p>
+ * SampleBrowser 每个会话用两个链表栈保存前进、后退页面，每个页面都是一个结点加一个 String，且没有上限。
+ * 会话数量达到百万级时，这些对象是堆内存的主要消耗。本引擎保持 open、goBack、goForward 的语义，但是：
+ * 1. 每个会话的历史是一个固定长度的环形缓冲区，后退页面、当前页面、前进页面连续存放，超过深度时丢弃最早的后退页面；
+ * 2. URL 去重后分配 int 编号，历史中只保存 int，相同的 URL 在所有会话中只保存一份，引用计数归零时回收编号；
+ * 3. 所有会话的环形缓冲区放在同一个大的 int 数组中，会话编号到下标的映射是基本类型的开放寻址哈希表，
+ * 每个会话没有独立的对象；
+ * 4. evictIdle 一次扫描批量淘汰长时间没有访问的会话，释放的下标放入空闲栈复用
+ * <p>
+ * 非线程安全，多线程使用时可以按照会话编号分成多个引擎，每个引擎一把锁
+ */
+public class SessionHistory {
+
+  private static final int INITIAL_SESSIONS = 16;
+
+  /**
+   * measure 测量期间保存构建结果，保证它在统计内存时仍然可达
+   */
+  private static Object sink;
+
+  /**
+   * 历史深度，包括当前页面
+   */
+  private final int depth;
+
+  /**
+   * URL 字典
+   */
+  private final UrlInterner urls = new UrlInterner();
+
+  /**
+   * 会话编号到会话下标的映射
+   */
+  private final LongIntMap sessions = new LongIntMap();
+
+  /**
+   * 所有会话的环形缓冲区，会话 s 占用 [s * depth, (s + 1) * depth)
+   */
+  private int[] history;
+
+  /**
+   * 每个会话的环形缓冲区中最早的位置
+   */
+  private int[] start;
+
+  /**
+   * 每个会话保存的页面数量
+   */
+  private int[] size;
+
+  /**
+   * 每个会话当前页面相对 start 的偏移，cursor 之前是后退页面，之后是前进页面
+   */
+  private int[] cursor;
+
+  /**
+   * 每个会话最后一次访问的时间
+   */
+  private long[] lastAccess;
+
+  /**
+   * 每个下标对应的会话编号，淘汰时用于删除映射
+   */
+  private long[] sessionIds;
+
+  /**
+   * 从未使用过的下标从 used 开始
+   */
+  private int used;
+
+  /**
+   * 被释放、可以复用的下标
+   */
+  private final IntStack freeSlots = new IntStack();
+
+  /**
+   * 时钟，单位纳秒
+   */
+  private LongSupplier ticker = System::nanoTime;
+
+  /**
+   * @param depth 每个会话最多保存的页面数量，包括当前页面
+   */
+  public SessionHistory(int depth) {
+    if (depth <= 0) {
+      throw new IllegalArgumentException("历史深度必须大于 0：" + depth);
+    }
+    this.depth = depth;
+    history = new int[INITIAL_SESSIONS * depth];
+    start = new int[INITIAL_SESSIONS];
+    size = new int[INITIAL_SESSIONS];
+    cursor = new int[INITIAL_SESSIONS];
+    lastAccess = new long[INITIAL_SESSIONS];
+    sessionIds = new long[INITIAL_SESSIONS];
+  }
+
+  /**
+   * 20 万个会话，每个会话 20 个页面（1000 个不同的 URL）：
+   * 历史引擎约 33 MB，每个会话两个链表栈（URL 同样去重）约 101 MB
+   */
+  public static void main(String[] args) {
+    // 与 SampleBrowser 相同的操作序列
+    SessionHistory browser = new SessionHistory(16);
+    long session = 1;
+    System.out.println("Open page ==> " + browser.open(session, "www.baidu.com"));
+    System.out.println("Open page ==> " + browser.open(session, "www.xinlang.com"));
+    System.out.println("Open page ==> " + browser.open(session, "www.google.com"));
+    System.out.println("Forward page ==> " + browser.goForward(session));
+    System.out.println("Back page ==> " + browser.goBack(session));
+    System.out.println("Back page ==> " + browser.goBack(session));
+    System.out.println("Back page ==> " + browser.goBack(session));
+    System.out.println("Forward page ==> " + browser.goForward(session));
+    System.out.println("Open page ==> " + browser.open(session, "www.qq.com"));
+    System.out.println("Back page ==> " + browser.goBack(session));
+    System.out.println("Open page ==> " + browser.open(session, "www.360.com"));
+    System.out.println("Back page ==> " + browser.goBack(session));
+    System.out.println("Current Page is: " + browser.currentPage(session));
+    System.out.println("Forward page ==> " + browser.goForward(session));
+
+    // 深度有限：只保留最近的 3 个页面
+    SessionHistory bounded = new SessionHistory(3);
+    for (int i = 1; i <= 5; i++) {
+      bounded.open(session, "page" + i);
+    }
+    System.out.println("深度为 3，打开 5 个页面后连续后退：" + bounded.goBack(session) + " " + bounded.goBack(session)
+      + " " + bounded.goBack(session));
+
+    // 内存对比：20 万个会话，每个会话打开 20 个页面，页面从 1000 个 URL 中选择
+    int sessionsCount = 200_000;
+    long engineBytes = measure(() -> {
+      SessionHistory engine = new SessionHistory(20);
+      for (long s = 0; s < sessionsCount; s++) {
+        for (int i = 0; i < 20; i++) {
+          engine.open(s, "https://example.com/page/" + ((s * 31 + i * 17) % 1000));
+        }
+      }
+      return engine;
+    });
+    long stackBytes = measure(() -> {
+      Object[] browsers = new Object[sessionsCount];
+      for (int s = 0; s < sessionsCount; s++) {
+        StackBasedOnLinkeList<String> back = new StackBasedOnLinkeList<>();
+        for (int i = 0; i < 19; i++) {
+          back.push(("https://example.com/page/" + (((long) s * 31 + i * 17) % 1000)).intern());
+        }
+        browsers[s] = new Object[] {back, new StackBasedOnLinkeList<String>()};
+      }
+      return browsers;
+    });
+    System.out.printf("%d 个会话：历史引擎约 %d MB，链表栈约 %d MB%n", sessionsCount, engineBytes >> 20, stackBytes >> 20);
+
+    // 批量淘汰空闲会话
+    long[] now = {0};
+    SessionHistory idle = new SessionHistory(8);
+    idle.ticker = () -> now[0];
+    for (long s = 0; s < 10; s++) {
+      idle.open(s, "www.a.com");
+    }
+    now[0] = TimeUnit.MINUTES.toNanos(30);
+    idle.open(3, "www.b.com");
+    System.out.println("淘汰空闲超过 10 分钟的会话：" + idle.evictIdle(10, TimeUnit.MINUTES) + "，剩余会话："
+      + idle.sessionCount() + "，剩余 URL：" + idle.distinctUrls());
+  }
+
+  /**
+   * 打开页面：当前页面成为后退页面，前进页面全部清空
+   *
+   * @param session 会话编号，会话不存在时创建
+   * @param url     页面 URL
+   * @return 页面 URL
+   */
+  public String open(long session, String url) {
+    if (url == null) {
+      throw new IllegalArgumentException("不支持 null 数据");
+    }
+    int s = sessions.get(session);
+    if (s < 0) {
+      s = allocate(session);
+    }
+    lastAccess[s] = ticker.getAsLong();
+    // 清空前进页面
+    while (size[s] > cursor[s] + 1) {
+      size[s]--;
+      urls.release(history[position(s, size[s])]);
+    }
+    if (size[s] == depth) {
+      // 深度已满，丢弃最早的后退页面
+      urls.release(history[position(s, 0)]);
+      start[s] = start[s] + 1 == depth ? 0 : start[s] + 1;
+      size[s]--;
+    }
+    history[position(s, size[s])] = urls.intern(url);
+    cursor[s] = size[s];
+    size[s]++;
+    return url;
+  }
+
+  /**
+   * 后退
+   *
+   * @param session 会话编号
+   * @return 后退后的当前页面，不能后退时返回 null
+   */
+  public String goBack(long session) {
+    int s = sessions.get(session);
+    if (s < 0 || cursor[s] == 0) {
+      return null;
+    }
+    lastAccess[s] = ticker.getAsLong();
+    cursor[s]--;
+    return urls.get(history[position(s, cursor[s])]);
+  }
+
+  /**
+   * 前进
+   *
+   * @param session 会话编号
+   * @return 前进后的当前页面，不能前进时返回 null
+   */
+  public String goForward(long session) {
+    int s = sessions.get(session);
+    if (s < 0 || cursor[s] + 1 >= size[s]) {
+      return null;
+    }
+    lastAccess[s] = ticker.getAsLong();
+    cursor[s]++;
+    return urls.get(history[position(s, cursor[s])]);
+  }
+
+  /**
+   * 当前页面
+   *
+   * @param session 会话编号
+   * @return 当前页面，会话不存在时返回 null
+   */
+  public String currentPage(long session) {
+    int s = sessions.get(session);
+    return s < 0 ? null : urls.get(history[position(s, cursor[s])]);
+  }
+
+  public boolean canGoBack(long session) {
+    int s = sessions.get(session);
+    return s >= 0 && cursor[s] > 0;
+  }
+
+  public boolean canGoForward(long session) {
+    int s = sessions.get(session);
+    return s >= 0 && cursor[s] + 1 < size[s];
+  }
+
+  /**
+   * 关闭会话，释放其历史
+   *
+   * @param session 会话编号
+   */
+  public void close(long session) {
+    int s = sessions.get(session);
+    if (s >= 0) {
+      free(s);
+    }
+  }
+
+  /**
+   * 批量淘汰超过指定时间没有访问的会话，扫描一遍所有会话
+   *
+   * @param idleTime 空闲时间
+   * @param unit     时间单位
+   * @return 淘汰的会话数量
+   */
+  public int evictIdle(long idleTime, TimeUnit unit) {
+    long deadline = ticker.getAsLong() - unit.toNanos(idleTime);
+    int evicted = 0;
+    for (int s = 0; s < used; s++) {
+      if (size[s] > 0 && lastAccess[s] - deadline < 0) {
+        free(s);
+        evicted++;
+      }
+    }
+    return evicted;
+  }
+
+  public int sessionCount() {
+    return sessions.size();
+  }
+
+  /**
+   * 当前保存的不同 URL 数量
+   *
+   * @return URL 数量
+   */
+  public int distinctUrls() {
+    return urls.size();
+  }
+
+  /**
+   * 会话 s 中相对最早页面偏移为 offset 的页面在 history 中的下标
+   */
+  private int position(int s, int offset) {
+    int p = start[s] + offset;
+    if (p >= depth) {
+      p -= depth;
+    }
+    return s * depth + p;
+  }
+
+  private int allocate(long session) {
+    int s;
+    if (!freeSlots.isEmpty()) {
+      s = freeSlots.pop();
+    } else {
+      if (used == start.length) {
+        grow();
+      }
+      s = used++;
+    }
+    start[s] = 0;
+    size[s] = 0;
+    cursor[s] = 0;
+    sessionIds[s] = session;
+    sessions.put(session, s);
+    return s;
+  }
+
+  private void free(int s) {
+    for (int i = 0; i < size[s]; i++) {
+      urls.release(history[position(s, i)]);
+    }
+    size[s] = 0;
+    sessions.remove(sessionIds[s]);
+    freeSlots.push(s);
+  }
+
+  private void grow() {
+    int capacity = start.length * 2;
+    history = Arrays.copyOf(history, capacity * depth);
+    start = Arrays.copyOf(start, capacity);
+    size = Arrays.copyOf(size, capacity);
+    cursor = Arrays.copyOf(cursor, capacity);
+    lastAccess = Arrays.copyOf(lastAccess, capacity);
+    sessionIds = Arrays.copyOf(sessionIds, capacity);
+  }
+
+  /**
+   * 执行构建函数，估算其返回的对象占用的堆内存
+   */
+  private static long measure(Supplier<Object> builder) {
+    long before = usedMemory();
+    sink = builder.get();
+    long after = usedMemory();
+    sink = null;
+    return after - before;
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * URL 字典：URL 与 int 编号一一对应，带引用计数
+   * <p>
+   * 编号到 URL 是数组，URL 到编号是线性探测的开放寻址哈希表，表中存放编号加一，0 表示空位
+   */
+  private static class UrlInterner {
+
+    private String[] urls = new String[16];
+
+    private int[] refs = new int[16];
+
+    private int[] table = new int[32];
+
+    private int nextId;
+
+    private int count;
+
+    private final IntStack freeIds = new IntStack();
+
+    int size() {
+      return count;
+    }
+
+    String get(int id) {
+      return urls[id];
+    }
+
+    /**
+     * 查找或分配 URL 的编号，引用计数加一
+     */
+    int intern(String url) {
+      int i = home(url);
+      while (table[i] != 0) {
+        int id = table[i] - 1;
+        if (urls[id].equals(url)) {
+          refs[id]++;
+          return id;
+        }
+        i = (i + 1) & (table.length - 1);
+      }
+      int id;
+      if (!freeIds.isEmpty()) {
+        id = freeIds.pop();
+      } else {
+        if (nextId == urls.length) {
+          urls = Arrays.copyOf(urls, nextId * 2);
+          refs = Arrays.copyOf(refs, nextId * 2);
+        }
+        id = nextId++;
+      }
+      urls[id] = url;
+      refs[id] = 1;
+      table[i] = id + 1;
+      count++;
+      if (count * 2 > table.length) {
+        rehash();
+      }
+      return id;
+    }
+
+    /**
+     * 引用计数减一，归零时删除 URL 并回收编号
+     */
+    void release(int id) {
+      if (--refs[id] > 0) {
+        return;
+      }
+      int mask = table.length - 1;
+      int i = home(urls[id]);
+      while (table[i] != id + 1) {
+        i = (i + 1) & mask;
+      }
+      // 向后移动删除：把后面探测链上的元素前移，填补空位，不需要墓碑标记
+      int j = i;
+      while (true) {
+        j = (j + 1) & mask;
+        if (table[j] == 0) {
+          break;
+        }
+        int k = home(urls[table[j] - 1]);
+        boolean stay = i <= j ? (i < k && k <= j) : (i < k || k <= j);
+        if (!stay) {
+          table[i] = table[j];
+          i = j;
+        }
+      }
+      table[i] = 0;
+      urls[id] = null;
+      freeIds.push(id);
+      count--;
+    }
+
+    private int home(String url) {
+      int h = url.hashCode() * 0x9E3779B9;
+      return (h ^ (h >>> 16)) & (table.length - 1);
+    }
+
+    private void rehash() {
+      int[] old = table;
+      table = new int[old.length * 2];
+      for (int entry : old) {
+        if (entry != 0) {
+          int i = home(urls[entry - 1]);
+          while (table[i] != 0) {
+            i = (i + 1) & (table.length - 1);
+          }
+          table[i] = entry;
+        }
+      }
+    }
+
+  }
+
+  /**
+   * long 到非负 int 的开放寻址哈希表，线性探测，没有装箱
+   */
+  private static class LongIntMap {
+
+    private long[] keys = new long[32];
+
+    /**
+     * 值加一，0 表示空位
+     */
+    private int[] values = new int[32];
+
+    private int count;
+
+    int size() {
+      return count;
+    }
+
+    /**
+     * @return 值，不存在时返回 -1
+     */
+    int get(long key) {
+      int mask = keys.length - 1;
+      for (int i = home(key, mask); values[i] != 0; i = (i + 1) & mask) {
+        if (keys[i] == key) {
+          return values[i] - 1;
+        }
+      }
+      return -1;
+    }
+
+    void put(long key, int value) {
+      int mask = keys.length - 1;
+      int i = home(key, mask);
+      while (values[i] != 0) {
+        if (keys[i] == key) {
+          values[i] = value + 1;
+          return;
+        }
+        i = (i + 1) & mask;
+      }
+      keys[i] = key;
+      values[i] = value + 1;
+      if (++count * 2 > keys.length) {
+        rehash();
+      }
+    }
+
+    void remove(long key) {
+      int mask = keys.length - 1;
+      int i = home(key, mask);
+      while (values[i] != 0 && keys[i] != key) {
+        i = (i + 1) & mask;
+      }
+      if (values[i] == 0) {
+        return;
+      }
+      int j = i;
+      while (true) {
+        j = (j + 1) & mask;
+        if (values[j] == 0) {
+          break;
+        }
+        int k = home(keys[j], mask);
+        boolean stay = i <= j ? (i < k && k <= j) : (i < k || k <= j);
+        if (!stay) {
+          keys[i] = keys[j];
+          values[i] = values[j];
+          i = j;
+        }
+      }
+      values[i] = 0;
+      count--;
+    }
+
+    private static int home(long key, int mask) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash() {
+      long[] oldKeys = keys;
+      int[] oldValues = values;
+      keys = new long[oldKeys.length * 2];
+      values = new int[oldValues.length * 2];
+      int mask = keys.length - 1;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldValues[i] != 0) {
+          int j = home(oldKeys[i], mask);
+          while (values[j] != 0) {
+            j = (j + 1) & mask;
+          }
+          keys[j] = oldKeys[i];
+          values[j] = oldValues[i];
+        }
+      }
+    }
+
+  }
+
+}
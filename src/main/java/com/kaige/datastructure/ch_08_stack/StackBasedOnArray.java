@@ -96,7 +96,7 @@ public class StackBasedOnArray<T> {
    * @return 栈容量是否已满
    */
   public boolean isFull() {
-    return data.length == capacity;
+    return count == capacity;
   }
 
   /**
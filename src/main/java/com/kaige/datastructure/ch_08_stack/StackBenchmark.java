@@ -0,0 +1,154 @@
+package com.kaige.datastructure.ch_08_stack;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 8-7 并发栈的多线程吞吐量对比
+ * <p>
+ * 每个线程循环执行一次入栈、一次出栈，对比全局锁的顺序栈、Treiber 无锁栈以及带版本号的下标栈。
+ * 压测前每个栈预先放入一批元素，出栈基本不会遇到空栈
+ */
+public class StackBenchmark {
+
+  /**
+   * 每个线程的入栈、出栈次数
+   */
+  private static final int opsPerThread = 1_000_000;
+
+  /**
+   * 预先放入的元素数量
+   */
+  private static final int prefill = 1024;
+
+  /**
+   * 压测的线程数
+   */
+  private static final int[] threadCounts = {1, 2, 4, 8};
+
+  // 单核环境（结果单位：次/ms）：
+  // 线程数 = 1  全局锁顺序栈 56760  Treiber 栈 35974  下标栈 47248
+  // 线程数 = 2  全局锁顺序栈 61578  Treiber 栈 38518  下标栈 34784
+  // 线程数 = 4  全局锁顺序栈 33279  Treiber 栈 41880  下标栈 41381
+  // 线程数 = 8  全局锁顺序栈 40173  Treiber 栈 51142  下标栈 41097
+  // 单核上线程不会真正同时执行，锁几乎没有竞争，CAS 也几乎不失败，三者都在同一个量级，多次运行的波动比差距还大；
+  // 线程数增加后全局锁顺序栈开始下降，无锁栈基本不变。多核环境下全局锁会让所有线程串行，
+  // CAS 失败只需要本线程重试，无锁栈的优势才会体现出来
+  public static void main(String[] args) throws InterruptedException {
+    // 预热
+    run(new SynchronizedArrayStack(), 2);
+    run(new LockFreeStack(), 2);
+    run(new FreeListStack(), 2);
+
+    for (int threads : threadCounts) {
+      double synchronizedStack = run(new SynchronizedArrayStack(), threads);
+      double treiber = run(new LockFreeStack(), threads);
+      double freeList = run(new FreeListStack(), threads);
+      System.out.printf("线程数 = %d\t全局锁顺序栈：%.0f 次/ms\tTreiber 栈：%.0f 次/ms\t下标栈：%.0f 次/ms%n",
+        threads, synchronizedStack, treiber, freeList);
+    }
+  }
+
+  /**
+   * 执行压测
+   *
+   * @return 吞吐量，每毫秒的操作次数，入栈、出栈各算一次
+   */
+  private static double run(ConcurrentStack stack, int threads) throws InterruptedException {
+    for (int i = 0; i < prefill; i++) {
+      stack.push(i);
+    }
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      new Thread(() -> {
+        try {
+          start.await();
+          int value = 0;
+          for (int i = 0; i < opsPerThread; i++) {
+            value = stack.pop();
+            if (value >= 0) {
+              stack.push(value);
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          done.countDown();
+        }
+      }).start();
+    }
+    long begin = System.nanoTime();
+    start.countDown();
+    done.await();
+    double millis = (System.nanoTime() - begin) / 1_000_000.0;
+    return 2.0 * threads * opsPerThread / millis;
+  }
+
+  private interface ConcurrentStack {
+
+    void push(int value);
+
+    /**
+     * @return 栈顶元素，栈为空时返回 -1
+     */
+    int pop();
+
+  }
+
+  /**
+   * 使用一把全局锁包装 StackBasedOnArray
+   */
+  private static class SynchronizedArrayStack implements ConcurrentStack {
+
+    private final StackBasedOnArray<Integer> stack = new StackBasedOnArray<>(prefill);
+
+    @Override
+    public synchronized void push(int value) {
+      stack.push(value);
+    }
+
+    @Override
+    public synchronized int pop() {
+      Integer value = stack.pop();
+      return value == null ? -1 : value;
+    }
+
+  }
+
+  private static class LockFreeStack implements ConcurrentStack {
+
+    private final TreiberStack<Integer> stack = new TreiberStack<>();
+
+    @Override
+    public void push(int value) {
+      stack.push(value);
+    }
+
+    @Override
+    public int pop() {
+      Integer value = stack.pop();
+      return value == null ? -1 : value;
+    }
+
+  }
+
+  /**
+   * 槽位编号就是元素，预先放入的元素即全部槽位
+   */
+  private static class FreeListStack implements ConcurrentStack {
+
+    private final ConcurrentIntFreeList freeList = new ConcurrentIntFreeList(prefill, false);
+
+    @Override
+    public void push(int value) {
+      freeList.push(value);
+    }
+
+    @Override
+    public int pop() {
+      return freeList.pop();
+    }
+
+  }
+
+}
@@ -0,0 +1,101 @@
+package com.kaige.datastructure.ch_08_stack;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 8-5 Treiber 无锁栈
+ * <p>
+ * 特性：
+ * 1. 栈顶是一个 AtomicReference，入栈、出栈都是先读栈顶，再用 CAS 把栈顶换成新结点或者下一个结点，CAS 失败则重试；
+ * 2. 结点创建后不再修改，出栈的结点不会被复用，由 GC 回收，一个结点在被引用期间不会以新结点的身份重新入栈，
+ * 所以不存在 ABA 问题；复用下标的 ConcurrentIntFreeList 需要额外的版本号
+ */
+public class TreiberStack<T> {
+
+  /**
+   * 栈顶
+   */
+  private final AtomicReference<Node<T>> top = new AtomicReference<>();
+
+  public static void main(String[] args) throws InterruptedException {
+    TreiberStack<Integer> stack = new TreiberStack<>();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      int offset = t * 1000;
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 1000; i++) {
+          stack.push(offset + i);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    int count = 0;
+    while (stack.pop() != null) {
+      count++;
+    }
+    System.out.println("4 个线程各入栈 1000 个元素，出栈数量：" + count);
+  }
+
+  /**
+   * 入栈
+   *
+   * @param e 元素
+   */
+  public void push(T e) {
+    Node<T> newNode = new Node<>(e);
+    Node<T> oldTop;
+    do {
+      oldTop = top.get();
+      newNode.next = oldTop;
+    } while (!top.compareAndSet(oldTop, newNode));
+  }
+
+  /**
+   * 出栈
+   *
+   * @return 栈顶元素，栈为空时返回 null
+   */
+  public T pop() {
+    Node<T> oldTop;
+    do {
+      oldTop = top.get();
+      if (oldTop == null) {
+        return null;
+      }
+    } while (!top.compareAndSet(oldTop, oldTop.next));
+    return oldTop.data;
+  }
+
+  /**
+   * 查看栈顶元素
+   *
+   * @return 栈顶元素，栈为空时返回 null
+   */
+  public T peek() {
+    Node<T> t = top.get();
+    return t == null ? null : t.data;
+  }
+
+  public boolean isEmpty() {
+    return top.get() == null;
+  }
+
+  private static class Node<T> {
+
+    private final T data;
+
+    /**
+     * 只在入栈 CAS 成功之前修改，CAS 成功后对其他线程可见
+     */
+    private Node<T> next;
+
+    Node(T data) {
+      this.data = data;
+    }
+
+  }
+
+}
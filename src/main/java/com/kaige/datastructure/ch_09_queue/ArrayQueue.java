@@ -40,7 +40,7 @@ public class ArrayQueue<T> {
    *
    * @param capacity
    */
-  private ArrayQueue(int capacity) {
+  ArrayQueue(int capacity) {
     this.capacity = capacity;
     items = (T[]) new Object[capacity];
     count = 0;
@@ -1,89 +1,386 @@
 package com.kaige.datastructure.ch_09_queue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 9-3 基于数组的阻塞队列
+ * <p>
+ * 与 LinkedBlockingQueue 一样使用两把锁：
+ * 1. 入队只修改 tail，由入队锁保护，出队只修改 head，由出队锁保护，生产者与消费者可以同时操作；
+ * 2. 元素数量 count 是原子变量，生产者写入元素后增加 count，消费者读到 count 后再读取元素，
+ * count 的 volatile 读写保证了元素的可见性；
+ * 3. 只有队列从空变为非空时，生产者才去获取出队锁唤醒消费者，从满变为不满时同理，
+ * 其余时候由被唤醒的线程接力唤醒同一侧的下一个线程，减少加锁和线程切换；
+ * 4. putAll、drainTo 在一次加锁中移动一批元素，每批只唤醒一次
  */
 public class BlockArrayQueue<T> extends ArrayQueue<T> {
-  
+
   /**
-   * 锁
+   * 元素数量，父类的 count 不再使用
    */
-  private final ReentrantLock lock = new ReentrantLock();
-  
+  private final AtomicInteger size = new AtomicInteger();
+
   /**
-   * 未满条件
+   * 出队锁
    */
-  private final Condition notFull = lock.newCondition();
-  
+  private final ReentrantLock takeLock = new ReentrantLock();
+
   /**
    * 非空条件
    */
-  private final Condition notEmpty = lock.newCondition();
-  
+  private final Condition notEmpty = takeLock.newCondition();
+
+  /**
+   * 入队锁
+   */
+  private final ReentrantLock putLock = new ReentrantLock();
+
+  /**
+   * 未满条件
+   */
+  private final Condition notFull = putLock.newCondition();
+
+  public BlockArrayQueue() {
+    super();
+  }
+
+  /**
+   * @param capacity 队列容量
+   */
+  public BlockArrayQueue(int capacity) {
+    super(capacity);
+  }
+
+  public static void main(String[] args) {
+    BlockArrayQueue<Integer> queue = new BlockArrayQueue<>(4);
+    Thread consumer = new Thread(() -> {
+      List<Integer> batch = new ArrayList<>();
+      int received = 0;
+      try {
+        while (received < 10) {
+          // 先阻塞等待一个元素，再把已有的元素一次取走
+          batch.add(queue.task());
+          queue.drainTo(batch, 3);
+          System.out.println("消费者取到一批：" + batch);
+          received += batch.size();
+          batch.clear();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    consumer.start();
+    try {
+      // 容量为 4，10 个元素分多批写入，每批只唤醒一次消费者
+      queue.putAll(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+      consumer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    queue.printAll();
+  }
+
+  /**
+   * 出队操作用 null 表示队列为空，不允许写入 null
+   */
+  private static void checkNotNull(Object v) {
+    if (v == null) {
+      throw new NullPointerException();
+    }
+  }
+
+  /**
+   * 阻塞的入队操作，队列已满时等待
+   *
+   * @param e 元素
+   * @throws InterruptedException 等待时被中断
+   */
   public void put(T e) throws InterruptedException {
-    ReentrantLock lock = this.lock;
-    lock.lockInterruptibly();
+    checkNotNull(e);
+    int c;
+    ReentrantLock putLock = this.putLock;
+    putLock.lockInterruptibly();
     try {
-      // 阻塞直到队列未满
-      while (isFull()) {
-        // 队列已经满了，则通知非满条件等待
+      while (size.get() == capacity) {
         notFull.await();
       }
-      enqueue(e);
+      insert(e);
+      c = size.getAndIncrement();
+      if (c + 1 < capacity) {
+        // 还有空位，接力唤醒下一个等待的生产者
+        notFull.signal();
+      }
     } finally {
-      lock.unlock();
+      putLock.unlock();
     }
+    if (c == 0) {
+      signalNotEmpty();
+    }
+  }
 
+  /**
+   * 批量入队，一次加锁写入当前所有空位，每批只唤醒一次消费者，队列已满时等待，直到全部入队
+   *
+   * @param c 元素
+   * @throws InterruptedException 等待时被中断，已经入队的元素保留在队列中
+   */
+  public void putAll(Collection<? extends T> c) throws InterruptedException {
+    List<T> items = new ArrayList<>(c);
+    for (T e : items) {
+      checkNotNull(e);
+    }
+    int offset = 0;
+    while (offset < items.size()) {
+      int before;
+      int n;
+      ReentrantLock putLock = this.putLock;
+      putLock.lockInterruptibly();
+      try {
+        while (size.get() == capacity) {
+          notFull.await();
+        }
+        n = Math.min(capacity - size.get(), items.size() - offset);
+        for (int i = 0; i < n; i++) {
+          insert(items.get(offset + i));
+        }
+        before = size.getAndAdd(n);
+        if (before + n < capacity) {
+          notFull.signal();
+        }
+      } finally {
+        putLock.unlock();
+      }
+      offset += n;
+      if (before == 0) {
+        signalNotEmpty();
+      }
+    }
   }
 
   /**
-   * 阻塞的入队操作
+   * 非阻塞的入队操作
    *
    * @param item 元素
-   * @return 入队是否成功
+   * @return 队列已满时返回 false
    */
   @Override
   public boolean enqueue(T item) {
-    items[tail] = item;
-    // 这个操作相比判断是否等于 head 值更加简单
-    tail = ++tail % capacity;
-    count++;
-    // 通知非空条件
-    notEmpty.signal();
-    return true;
+    checkNotNull(item);
+    if (size.get() == capacity) {
+      return false;
+    }
+    int c = -1;
+    ReentrantLock putLock = this.putLock;
+    putLock.lock();
+    try {
+      if (size.get() < capacity) {
+        insert(item);
+        c = size.getAndIncrement();
+        if (c + 1 < capacity) {
+          notFull.signal();
+        }
+      }
+    } finally {
+      putLock.unlock();
+    }
+    if (c == 0) {
+      signalNotEmpty();
+    }
+    return c >= 0;
   }
 
   /**
-   * 阻塞的出队操作
+   * 阻塞的出队操作，队列为空时等待
    *
    * @return 队头的元素
-   * @throws InterruptedException
+   * @throws InterruptedException 等待时被中断
    */
   public T task() throws InterruptedException {
-    ReentrantLock lock = this.lock;
-    lock.lockInterruptibly();
+    T item;
+    int c;
+    ReentrantLock takeLock = this.takeLock;
+    takeLock.lockInterruptibly();
     try {
-      while (isEmpty()) {
-        // 非空条件等待
+      while (size.get() == 0) {
         notEmpty.await();
       }
-      return dequeue();
+      item = extract();
+      c = size.getAndDecrement();
+      if (c > 1) {
+        // 还有元素，接力唤醒下一个等待的消费者
+        notEmpty.signal();
+      }
     } finally {
-      lock.unlock();
+      takeLock.unlock();
+    }
+    if (c == capacity) {
+      signalNotFull();
     }
+    return item;
   }
 
+  /**
+   * 非阻塞的出队操作
+   *
+   * @return 队头的元素，队列为空时返回 null
+   */
   @Override
   public T dequeue() {
+    if (size.get() == 0) {
+      return null;
+    }
+    T item = null;
+    int c = -1;
+    ReentrantLock takeLock = this.takeLock;
+    takeLock.lock();
+    try {
+      if (size.get() > 0) {
+        item = extract();
+        c = size.getAndDecrement();
+        if (c > 1) {
+          notEmpty.signal();
+        }
+      }
+    } finally {
+      takeLock.unlock();
+    }
+    if (c == capacity) {
+      signalNotFull();
+    }
+    return item;
+  }
+
+  /**
+   * 批量出队，一次加锁取走最多 maxElements 个元素，不等待，每批只唤醒一次生产者
+   *
+   * @param c           出队元素加入的集合
+   * @param maxElements 最多出队的数量
+   * @return 出队的元素数量
+   */
+  public int drainTo(Collection<? super T> c, int maxElements) {
+    if (maxElements <= 0) {
+      return 0;
+    }
+    int n;
+    int before;
+    ReentrantLock takeLock = this.takeLock;
+    takeLock.lock();
+    try {
+      n = Math.min(maxElements, size.get());
+      if (n == 0) {
+        return 0;
+      }
+      List<T> drained = new ArrayList<>(n);
+      for (int i = 0; i < n; i++) {
+        drained.add(extract());
+      }
+      before = size.getAndAdd(-n);
+      if (before > n) {
+        notEmpty.signal();
+      }
+      c.addAll(drained);
+    } finally {
+      takeLock.unlock();
+    }
+    if (before == capacity) {
+      signalNotFull();
+    }
+    return n;
+  }
+
+  /**
+   * 一次取走所有元素
+   *
+   * @param c 出队元素加入的集合
+   * @return 出队的元素数量
+   */
+  public int drainTo(Collection<? super T> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  public int size() {
+    return size.get();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size.get() == 0;
+  }
+
+  @Override
+  boolean isFull() {
+    return size.get() == capacity;
+  }
+
+  @Override
+  public void printAll() {
+    putLock.lock();
+    takeLock.lock();
+    try {
+      if (size.get() == 0) {
+        System.out.println("队列为空");
+        return;
+      }
+      StringBuilder sb = new StringBuilder();
+      for (int i = head, k = size.get(); k > 0; k--) {
+        sb.append(items[i]).append(" ");
+        i = ++i % capacity;
+      }
+      System.out.println(sb);
+    } finally {
+      takeLock.unlock();
+      putLock.unlock();
+    }
+  }
+
+  /**
+   * 在 tail 写入元素，持有入队锁时调用
+   */
+  private void insert(T item) {
+    items[tail] = item;
+    tail = ++tail % capacity;
+  }
+
+  /**
+   * 取出 head 的元素，持有出队锁时调用
+   */
+  private T extract() {
     T item = items[head];
+    items[head] = null;
     head = ++head % capacity;
-    count--;
-    // 通知非满条件
-    notFull.signal();
     return item;
   }
 
+  /**
+   * 队列从空变为非空时唤醒一个消费者
+   */
+  private void signalNotEmpty() {
+    ReentrantLock takeLock = this.takeLock;
+    takeLock.lock();
+    try {
+      notEmpty.signal();
+    } finally {
+      takeLock.unlock();
+    }
+  }
+
+  /**
+   * 队列从满变为不满时唤醒一个生产者
+   */
+  private void signalNotFull() {
+    ReentrantLock putLock = this.putLock;
+    putLock.lock();
+    try {
+      notFull.signal();
+    } finally {
+      putLock.unlock();
+    }
+  }
+
 }
@@ -1,128 +1,274 @@
-// package com.kaige.datastructure.ch_09_queue;
-//
-// import sun.misc.Unsafe;
-//
-// import java.lang.reflect.Field;
-//
-// /**
-//  * 9-4 基于数组的并发队列
-//  */
-// public class ConcurrentArrayQueue<T> {
-//
-//   private static final sun.misc.Unsafe UNSAFE;
-//
-//   private static final long headOffset;
-//
-//   private static final long tailOffset;
-//
-//   static {
-//     try {
-//       Class<?> unsafeClass = Unsafe.class;
-//       Field theUnsafeField = unsafeClass.getDeclaredFields()[0];
-//       theUnsafeField.setAccessible(true);
-//       UNSAFE = (Unsafe) theUnsafeField.get(null);
-//       Class<?> k = ConcurrentArrayQueue.class;
-//       headOffset = UNSAFE.objectFieldOffset(k.getDeclaredField("head"));
-//       tailOffset = UNSAFE.objectFieldOffset(k.getDeclaredField("tail"));
-//     } catch (Exception e) {
-//       throw new Error(e);
-//     }
-//   }
-//
-//   private transient volatile Node<T> head;
-//
-//   private transient volatile Node<T> tail;
-//
-//   public ConcurrentArrayQueue() {
-//     head = tail = new Node<>(null, null);
-//   }
-//
-//   private static void checkNotNull(Object v) {
-//     if (v == null) {
-//       throw new NullPointerException();
-//     }
-//   }
-//
-//   // Unsafe mechanics
-//
-//   public boolean offer(T e) {
-//     Node<T> newNode = new Node<>(e, null);
-//
-//     // 定义两个结点 t、p
-//     for (Node<T> t = tail, p = t; ; ) {
-//       // 获取尾结点的下一个结点
-//       Node<T> q = p.next;
-//       if (q == null) {
-//         // p 是最后一个结点
-//         if (p.casNext(null, newNode)) {// 比较并交换设置末尾结点
-//           if (p != t) {// 如果发现此时有别的线程操作了，两个变量不一样了
-//             casTail(t, newNode);// 设置新节点作为尾结点，允许失败
-//           }
-//           return true;
-//         }
-//       } else if (p == q) {
-//         p = (t != (t = tail)) ? t : head;
-//       } else {
-//         p = (p != t && t != (t = tail)) ? t : q;
-//       }
-//     }
-//
-//   }
-//
-//   private boolean casTail(Node<T> cmp, Node<T> val) {
-//     return UNSAFE.compareAndSwapObject(this, tailOffset, cmp, val);
-//   }
-//
-//   private boolean casHead(Node<T> cmp, Node<T> val) {
-//     return UNSAFE.compareAndSwapObject(this, headOffset, cmp, val);
-//   }
-//
-//   private static class Node<T> {
-//
-//     private static final sun.misc.Unsafe UNSAFE;
-//
-//     private static final long itemOffset;
-//
-//     private static final long nextOffset;
-//
-//     static {
-//       try {
-//         // 通过反射获取 Unsafe 的实例
-//         Class<?> unsafeClass = Unsafe.class;
-//         Field theUnsafeField = unsafeClass.getDeclaredFields()[0];
-//         theUnsafeField.setAccessible(true);
-//         UNSAFE = (Unsafe) theUnsafeField.get(null);
-//         Class<?> k = Node.class;
-//         itemOffset = UNSAFE.objectFieldOffset(k.getDeclaredField("item"));
-//         nextOffset = UNSAFE.objectFieldOffset(k.getDeclaredField("next"));
-//       } catch (Exception e) {
-//         throw new Error(e);
-//       }
-//     }
-//
-//     volatile T item;
-//
-//     volatile Node<T> next;
-//
-//     // Unsafe mechanics
-//
-//     public Node(T item, Node<T> next) {
-//       this.item = item;
-//       this.next = next;
-//     }
-//
-//     boolean casItem(T cmp, T val) {
-//       return UNSAFE.compareAndSwapObject(this, itemOffset, cmp, val);
-//     }
-//
-//     void lazySetNext(Node<T> val) {
-//       UNSAFE.putOrderedObject(this, nextOffset, val);
-//     }
-//
-//     boolean casNext(Node<T> cmp, Node<T> val) {
-//       return UNSAFE.compareAndSwapObject(this, nextOffset, cmp, val);
-//     }
-//
-//   }
-//
-// }
+package com.kaige.datastructure.ch_09_queue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 9-4 基于数组的无锁有界并发队列（多生产者、多消费者）
+ * <p>
+ * 环形数组的每个槽位有一个序号，序号表示槽位当前的状态：
+ * 1. 序号等于位置 pos：槽位空闲，可以写入第 pos 个元素；
+ * 2. 序号等于 pos + 1：第 pos 个元素已经写入，可以读取；
+ * 3. 读取后序号设为 pos + capacity，等待下一圈的生产者。
+ * <p>
+ * 生产者通过 CAS 尾指针抢到位置后再写入元素、发布序号，消费者同理 CAS 头指针。
+ * 生产者之间、消费者之间只在指针上竞争，生产者与消费者只通过槽位序号交互。
+ * 头指针、尾指针各自独占一个缓存行，避免伪共享。
+ * 批量操作一次 CAS 抢占多个连续的位置，减少指针上的竞争
+ */
+public class ConcurrentArrayQueue<T> {
+
+  /**
+   * 元素，写入与读取的可见性由槽位序号的 volatile 读写保证
+   */
+  private final Object[] items;
+
+  /**
+   * 槽位序号
+   */
+  private final AtomicLongArray sequences;
+
+  /**
+   * 容量减一，容量是 2 的幂，取余换成按位与
+   */
+  private final int mask;
+
+  /**
+   * 下一个出队的位置
+   */
+  private final PaddedAtomicLong head = new PaddedAtomicLong(0);
+
+  /**
+   * 下一个入队的位置
+   */
+  private final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+
+  /**
+   * @param capacity 容量，向上取整为 2 的幂，至少为 2：容量为 1 时"已写入"与"下一圈空闲"的序号相同，无法区分
+   */
+  public ConcurrentArrayQueue(int capacity) {
+    if (capacity <= 0 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("容量必须在 1 到 2^30 之间：" + capacity);
+    }
+    int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+    items = new Object[size];
+    sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+    mask = size - 1;
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    ConcurrentArrayQueue<String> queue = new ConcurrentArrayQueue<>(4);
+    System.out.println(queue.offer("a") + " " + queue.offer("b"));
+    System.out.println("批量入队数量：" + queue.offerAll(Arrays.asList("c", "d", "e")));
+    System.out.println(queue.poll() + " " + queue.poll());
+    List<String> drained = new ArrayList<>();
+    System.out.println("批量出队数量：" + queue.drainTo(drained, 10) + " " + drained);
+
+    // 4 个生产者、4 个消费者，检查每个元素正好出队一次
+    ConcurrentArrayQueue<Integer> numbers = new ConcurrentArrayQueue<>(64);
+    int producers = 4;
+    int perProducer = 100_000;
+    AtomicLong sum = new AtomicLong();
+    AtomicInteger consumed = new AtomicInteger();
+    Thread[] threads = new Thread[producers * 2];
+    for (int p = 0; p < producers; p++) {
+      int base = p * perProducer;
+      threads[p] = new Thread(() -> {
+        for (int i = 0; i < perProducer; i++) {
+          while (!numbers.offer(base + i)) {
+            Thread.yield();
+          }
+        }
+      });
+      threads[producers + p] = new Thread(() -> {
+        while (consumed.get() < producers * perProducer) {
+          Integer value = numbers.poll();
+          if (value == null) {
+            Thread.yield();
+          } else {
+            sum.addAndGet(value);
+            consumed.incrementAndGet();
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long n = (long) producers * perProducer;
+    System.out.println("出队元素之和正确：" + (sum.get() == n * (n - 1) / 2));
+  }
+
+  private static void checkNotNull(Object v) {
+    if (v == null) {
+      throw new NullPointerException();
+    }
+  }
+
+  /**
+   * 入队
+   *
+   * @param e 元素
+   * @return 队列已满时返回 false
+   */
+  public boolean offer(T e) {
+    checkNotNull(e);
+    while (true) {
+      long pos = tail.get();
+      int index = (int) pos & mask;
+      long diff = sequences.get(index) - pos;
+      if (diff == 0) {
+        if (tail.compareAndSet(pos, pos + 1)) {
+          items[index] = e;
+          // 发布：序号的有序写入保证消费者看到序号时也能看到元素
+          sequences.lazySet(index, pos + 1);
+          return true;
+        }
+      } else if (diff < 0) {
+        // 槽位还没被上一圈的消费者释放，队列已满
+        return false;
+      }
+      // diff > 0：其他生产者已经抢到了这个位置，重新读取尾指针
+    }
+  }
+
+  /**
+   * 出队
+   *
+   * @return 队头元素，队列为空时返回 null
+   */
+  @SuppressWarnings("unchecked")
+  public T poll() {
+    while (true) {
+      long pos = head.get();
+      int index = (int) pos & mask;
+      long diff = sequences.get(index) - (pos + 1);
+      if (diff == 0) {
+        if (head.compareAndSet(pos, pos + 1)) {
+          T e = (T) items[index];
+          items[index] = null;
+          // 释放槽位给下一圈的生产者
+          sequences.lazySet(index, pos + mask + 1);
+          return e;
+        }
+      } else if (diff < 0) {
+        // 元素还没有写入，队列为空
+        return null;
+      }
+    }
+  }
+
+  /**
+   * 批量入队，每次 CAS 抢占当前所有连续的空闲位置，直到全部入队或者队列已满
+   *
+   * @param c 元素
+   * @return 入队的元素数量
+   */
+  public int offerAll(Collection<? extends T> c) {
+    for (T e : c) {
+      checkNotNull(e);
+    }
+    Iterator<? extends T> it = c.iterator();
+    int remaining = c.size();
+    int added = 0;
+    while (remaining > 0) {
+      long pos = tail.get();
+      int limit = Math.min(remaining, mask + 1);
+      int n = 0;
+      // 统计从尾指针开始连续的空闲槽位，消费者可能乱序释放，不能只检查最后一个槽位
+      while (n < limit && sequences.get((int) (pos + n) & mask) == pos + n) {
+        n++;
+      }
+      if (n == 0) {
+        if (sequences.get((int) pos & mask) < pos) {
+          return added;
+        }
+        continue;
+      }
+      // 检查过的槽位在 CAS 成功前只会被消费者释放，不会被占用
+      if (tail.compareAndSet(pos, pos + n)) {
+        for (int i = 0; i < n; i++) {
+          int index = (int) (pos + i) & mask;
+          items[index] = it.next();
+          sequences.lazySet(index, pos + i + 1);
+        }
+        added += n;
+        remaining -= n;
+      }
+    }
+    return added;
+  }
+
+  /**
+   * 批量出队，每次 CAS 抢占当前所有连续的已写入位置
+   *
+   * @param c           出队元素加入的集合
+   * @param maxElements 最多出队的数量
+   * @return 出队的元素数量
+   */
+  @SuppressWarnings("unchecked")
+  public int drainTo(Collection<? super T> c, int maxElements) {
+    int drained = 0;
+    while (drained < maxElements) {
+      long pos = head.get();
+      int limit = Math.min(maxElements - drained, mask + 1);
+      int n = 0;
+      while (n < limit && sequences.get((int) (pos + n) & mask) == pos + n + 1) {
+        n++;
+      }
+      if (n == 0) {
+        if (sequences.get((int) pos & mask) < pos + 1) {
+          return drained;
+        }
+        continue;
+      }
+      if (head.compareAndSet(pos, pos + n)) {
+        for (int i = 0; i < n; i++) {
+          int index = (int) (pos + i) & mask;
+          T e = (T) items[index];
+          items[index] = null;
+          sequences.lazySet(index, pos + i + mask + 1);
+          c.add(e);
+        }
+        drained += n;
+      }
+    }
+    return drained;
+  }
+
+  /**
+   * 元素数量，并发修改时是近似值
+   *
+   * @return 元素数量
+   */
+  public int size() {
+    while (true) {
+      long h = head.get();
+      long t = tail.get();
+      if (h == head.get()) {
+        return (int) Math.max(0, Math.min(t - h, mask + 1));
+      }
+    }
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public int capacity() {
+    return mask + 1;
+  }
+
+}
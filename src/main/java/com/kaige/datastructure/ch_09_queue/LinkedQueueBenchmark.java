@@ -0,0 +1,160 @@
+package com.kaige.datastructure.ch_09_queue;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 9-9 无锁链式队列的吞吐量与内存分配对比
+ * <p>
+ * 每个线程循环执行一次入队、一次出队，对比 JDK 的 ConcurrentLinkedQueue、LockFreeLinkedQueue
+ * 以及复用结点的 PooledLockFreeLinkedQueue。压测前预先放入一批元素，入队的都是同一个对象，
+ * 统计到的内存分配只来自队列本身
+ */
+public class LinkedQueueBenchmark {
+
+  /**
+   * 每个线程的入队、出队次数
+   */
+  private static final int opsPerThread = 2_000_000;
+
+  /**
+   * 预先放入的元素数量
+   */
+  private static final int prefill = 1024;
+
+  /**
+   * 压测的线程数
+   */
+  private static final int[] threadCounts = {1, 2, 4, 8};
+
+  private static final Integer ITEM = 1;
+
+  // 单核环境（吞吐量单位：次/ms，内存分配单位：字节/次入队）：
+  // 线程数 = 1  ConcurrentLinkedQueue 48257 24.0  LockFreeLinkedQueue 31787 24.0  PooledLockFreeLinkedQueue 21693 0.0
+  // 线程数 = 2  ConcurrentLinkedQueue 40429 24.0  LockFreeLinkedQueue 27153 24.0  PooledLockFreeLinkedQueue 18501 0.0
+  // 线程数 = 4  ConcurrentLinkedQueue 44552 24.0  LockFreeLinkedQueue 27997 24.0  PooledLockFreeLinkedQueue 21013 0.0
+  // 线程数 = 8  ConcurrentLinkedQueue 43739 24.0  LockFreeLinkedQueue 30685 24.0  PooledLockFreeLinkedQueue 21823 0.0
+  // 每次入队分配一个 24 字节的结点，复用结点的队列完全没有分配。
+  // ConcurrentLinkedQueue 比 LockFreeLinkedQueue 快，是因为它每隔一个结点才移动一次 head、tail，CAS 次数更少，
+  // 并且直接使用 Unsafe，没有字段更新器的类型检查；复用结点的队列每次入队、出队还要各执行一次空闲列表的 CAS，
+  // 吞吐量最低。单核上 GC 的开销很小，复用结点的收益在于不产生垃圾：堆很大或者对 GC 停顿敏感时，
+  // 少分配的内存比多出的 CAS 更重要
+  public static void main(String[] args) throws InterruptedException {
+    // 预热
+    run(new JdkQueue(), 2);
+    run(new GcQueue(), 2);
+    run(new PooledQueue(8), 2);
+
+    for (int threads : threadCounts) {
+      System.out.printf("线程数 = %d\tConcurrentLinkedQueue %s\tLockFreeLinkedQueue %s\tPooledLockFreeLinkedQueue %s%n",
+        threads, run(new JdkQueue(), threads), run(new GcQueue(), threads), run(new PooledQueue(threads), threads));
+    }
+  }
+
+  /**
+   * 执行压测
+   *
+   * @return 吞吐量与每次入队分配的内存
+   */
+  private static String run(SharedQueue queue, int threads) throws InterruptedException {
+    for (int i = 0; i < prefill; i++) {
+      queue.enqueue(ITEM);
+    }
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    LongAdder allocated = new LongAdder();
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      new Thread(() -> {
+        try {
+          start.await();
+          long id = Thread.currentThread().getId();
+          long before = threadBean.getThreadAllocatedBytes(id);
+          for (int i = 0; i < opsPerThread; i++) {
+            while (!queue.enqueue(ITEM)) {
+              Thread.yield();
+            }
+            queue.dequeue();
+          }
+          allocated.add(threadBean.getThreadAllocatedBytes(id) - before);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          done.countDown();
+        }
+      }).start();
+    }
+    long begin = System.nanoTime();
+    start.countDown();
+    done.await();
+    double millis = (System.nanoTime() - begin) / 1_000_000.0;
+    long ops = (long) threads * opsPerThread;
+    return String.format("%.0f 次/ms %.1f 字节/次", 2.0 * ops / millis, (double) allocated.sum() / ops);
+  }
+
+  private interface SharedQueue {
+
+    boolean enqueue(Integer item);
+
+    Integer dequeue();
+
+  }
+
+  private static class JdkQueue implements SharedQueue {
+
+    private final ConcurrentLinkedQueue<Integer> queue = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public boolean enqueue(Integer item) {
+      return queue.offer(item);
+    }
+
+    @Override
+    public Integer dequeue() {
+      return queue.poll();
+    }
+
+  }
+
+  private static class GcQueue implements SharedQueue {
+
+    private final LockFreeLinkedQueue<Integer> queue = new LockFreeLinkedQueue<>();
+
+    @Override
+    public boolean enqueue(Integer item) {
+      return queue.enqueue(item);
+    }
+
+    @Override
+    public Integer dequeue() {
+      return queue.dequeue();
+    }
+
+  }
+
+  /**
+   * 结点数量为预先放入的元素数量加线程数，每个线程入队时最多多占用一个结点
+   */
+  private static class PooledQueue implements SharedQueue {
+
+    private final PooledLockFreeLinkedQueue<Integer> queue;
+
+    PooledQueue(int threads) {
+      queue = new PooledLockFreeLinkedQueue<>(prefill + threads);
+    }
+
+    @Override
+    public boolean enqueue(Integer item) {
+      return queue.enqueue(item);
+    }
+
+    @Override
+    public Integer dequeue() {
+      return queue.dequeue();
+    }
+
+  }
+
+}
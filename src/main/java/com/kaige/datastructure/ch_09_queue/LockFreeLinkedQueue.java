@@ -0,0 +1,205 @@
+package com.kaige.datastructure.ch_09_queue;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * 9-7 无锁链式队列（Michael-Scott 算法）
+ * <p>
+ * QueueBasedOnLInkedList2 的多线程版本，同样使用哨兵结点，head 指向哨兵，真正的队头是 head.next：
+ * 1. 入队：CAS 把尾结点的 next 从 null 改为新结点，成功后再 CAS 把 tail 移到新结点；
+ * 2. tail 允许落后一个结点：任何线程发现 tail.next 不为 null 时，先帮忙把 tail 向后移动，再重试自己的操作，
+ * 因此一个线程在两次 CAS 之间停下来，不会阻塞其他线程；
+ * 3. 出队：CAS 把 head 移到 head.next，原来的 head.next 成为新的哨兵；
+ * 4. 出队的结点由 GC 回收，不存在 ABA 问题。需要减少结点分配时使用 PooledLockFreeLinkedQueue
+ * <p>
+ * 使用 AtomicReferenceFieldUpdater 对 volatile 字段做 CAS，不需要为每个结点额外创建 AtomicReference 对象
+ */
+public class LockFreeLinkedQueue<T> {
+
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<LockFreeLinkedQueue, Node> HEAD =
+    AtomicReferenceFieldUpdater.newUpdater(LockFreeLinkedQueue.class, Node.class, "head");
+
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<LockFreeLinkedQueue, Node> TAIL =
+    AtomicReferenceFieldUpdater.newUpdater(LockFreeLinkedQueue.class, Node.class, "tail");
+
+  /**
+   * 头指针，指向哨兵结点
+   */
+  private volatile Node<T> head;
+
+  /**
+   * 尾指针，可能落后真正的尾结点一个位置
+   */
+  private volatile Node<T> tail;
+
+  public LockFreeLinkedQueue() {
+    tail = head = new Node<>(null);
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    LockFreeLinkedQueue<String> queue = new LockFreeLinkedQueue<>();
+    queue.enqueue("a");
+    queue.enqueue("b");
+    queue.enqueue("c");
+    queue.printAll();
+    System.out.println(queue.dequeue() + " " + queue.dequeue());
+    queue.printAll();
+
+    // 4 个线程同时入队，再同时出队，检查元素数量与总和
+    LockFreeLinkedQueue<Integer> numbers = new LockFreeLinkedQueue<>();
+    int perThread = 100_000;
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      int base = t * perThread;
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < perThread; i++) {
+          numbers.enqueue(base + i);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long[] sums = new long[threads.length];
+    for (int t = 0; t < threads.length; t++) {
+      int index = t;
+      threads[t] = new Thread(() -> {
+        Integer value;
+        while ((value = numbers.dequeue()) != null) {
+          sums[index] += value;
+        }
+      });
+      threads[t].start();
+    }
+    long sum = 0;
+    for (int t = 0; t < threads.length; t++) {
+      threads[t].join();
+      sum += sums[t];
+    }
+    long n = (long) threads.length * perThread;
+    System.out.println("出队元素之和正确：" + (sum == n * (n - 1) / 2) + "，队列为空：" + numbers.isEmpty());
+  }
+
+  /**
+   * 入队操作，队列无界，总是成功
+   *
+   * @param item 元素
+   * @return 入队是否成功
+   */
+  public boolean enqueue(T item) {
+    if (item == null) {
+      throw new NullPointerException();
+    }
+    Node<T> node = new Node<>(item);
+    while (true) {
+      Node<T> t = tail;
+      Node<T> next = t.next;
+      if (t != tail) {
+        continue;
+      }
+      if (next == null) {
+        if (t.casNext(null, node)) {
+          // 失败说明其他线程已经帮忙移动了 tail
+          casTail(t, node);
+          return true;
+        }
+      } else {
+        // tail 落后了，帮忙向后移动
+        casTail(t, next);
+      }
+    }
+  }
+
+  /**
+   * 出队操作
+   *
+   * @return 队头元素，队列为空时返回 null
+   */
+  public T dequeue() {
+    while (true) {
+      Node<T> h = head;
+      Node<T> t = tail;
+      Node<T> next = h.next;
+      if (h != head) {
+        continue;
+      }
+      if (next == null) {
+        return null;
+      }
+      if (h == t) {
+        // 队列不为空但 tail 还指向哨兵，先帮忙移动 tail，避免 head 越过 tail
+        casTail(t, next);
+        continue;
+      }
+      // 在 CAS 之前读取元素：CAS 成功后 next 成为哨兵，可能立刻被其他出队线程清空
+      T item = next.item;
+      if (casHead(h, next)) {
+        next.item = null;
+        return item;
+      }
+    }
+  }
+
+  /**
+   * 队列是否为空
+   *
+   * @return 是否为空
+   */
+  public boolean isEmpty() {
+    return head.next == null;
+  }
+
+  /**
+   * 打印队列，并发修改时只是某一时刻的近似结果
+   */
+  public void printAll() {
+    Node<T> p = head.next;
+    if (p == null) {
+      System.out.println("队列为空");
+      return;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (; p != null; p = p.next) {
+      T item = p.item;
+      if (item != null) {
+        sb.append(item).append(" ");
+      }
+    }
+    System.out.println(sb);
+  }
+
+  private boolean casHead(Node<T> expect, Node<T> update) {
+    return HEAD.compareAndSet(this, expect, update);
+  }
+
+  private boolean casTail(Node<T> expect, Node<T> update) {
+    return TAIL.compareAndSet(this, expect, update);
+  }
+
+  private static class Node<T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+      AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+    /**
+     * 元素，结点成为哨兵后清空，由 next 的 volatile 读写保证可见性
+     */
+    volatile T item;
+
+    volatile Node<T> next;
+
+    Node(T item) {
+      this.item = item;
+    }
+
+    boolean casNext(Node<T> expect, Node<T> update) {
+      return NEXT.compareAndSet(this, expect, update);
+    }
+
+  }
+
+}
@@ -0,0 +1,63 @@
+package com.kaige.datastructure.ch_09_queue;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 前后各填充 56 字节的原子 long，独占一个缓存行
+ * <p>
+ * 队列的头指针、尾指针分别由消费者、生产者频繁修改，如果落在同一个缓存行中，
+ * 一方的写入会让另一方的缓存行失效（伪共享）。JVM 会把同一个类的字段重排，但父类的字段总是排在子类之前，
+ * 所以通过三层继承把 value 夹在两组填充字段之间
+ */
+class PaddedAtomicLong extends PaddedAtomicLongValue {
+
+  long p9, p10, p11, p12, p13, p14, p15;
+
+  PaddedAtomicLong(long initialValue) {
+    value = initialValue;
+  }
+
+  long get() {
+    return value;
+  }
+
+  void set(long newValue) {
+    value = newValue;
+  }
+
+  /**
+   * 有序写入：保证之前的写操作不会重排到它之后，但不等待写入对其他线程可见，比 volatile 写开销小
+   *
+   * @param newValue 新值
+   */
+  void lazySet(long newValue) {
+    UPDATER.lazySet(this, newValue);
+  }
+
+  boolean compareAndSet(long expect, long update) {
+    return UPDATER.compareAndSet(this, expect, update);
+  }
+
+  /**
+   * 防止填充字段被认为无用，返回值没有意义
+   */
+  long sumPaddingToPreventOptimisation() {
+    return p1 + p2 + p3 + p4 + p5 + p6 + p7 + p9 + p10 + p11 + p12 + p13 + p14 + p15;
+  }
+
+}
+
+abstract class PaddedAtomicLongValue extends PaddedAtomicLongLhs {
+
+  static final AtomicLongFieldUpdater<PaddedAtomicLongValue> UPDATER =
+    AtomicLongFieldUpdater.newUpdater(PaddedAtomicLongValue.class, "value");
+
+  volatile long value;
+
+}
+
+abstract class PaddedAtomicLongLhs {
+
+  long p1, p2, p3, p4, p5, p6, p7;
+
+}
@@ -0,0 +1,230 @@
+package com.kaige.datastructure.ch_09_queue;
+
+import com.kaige.datastructure.ch_08_stack.ConcurrentIntFreeList;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 9-8 复用结点的无锁链式队列（Michael-Scott 算法的计数指针版本）
+ * <p>
+ * LockFreeLinkedQueue 每次入队创建一个结点。本队列预先分配固定数量的结点，出队后的结点放回空闲列表再次使用，
+ * 入队、出队不创建任何对象：
+ * 1. 结点是数组下标，items 保存元素，next 保存下一个结点，空闲结点由 ConcurrentIntFreeList 管理；
+ * 2. 结点会被复用，直接 CAS 下标存在 ABA 问题：线程读到 head 为 A、A.next 为 B，准备 CAS 成 B；
+ * 此时 A 出队、被复用并重新入队，head 又变成 A，线程 1 的 CAS 仍然成功，却把已经出队的 B 变成了哨兵；
+ * 3. 与 ConcurrentIntFreeList 一样，head、tail、next 都是"版本号 + 下标"打包成的 long，每次修改版本号加一，
+ * 结点被复用后版本号已经变化，过期的 CAS 会失败，这也是论文中 counted pointer 的做法；
+ * 4. 结点数量固定，结点用完时入队返回 false，队列容量为结点数量减一（一个结点用作哨兵）；
+ * 5. 出队的元素在其结点作为哨兵期间仍被 items 引用，直到下一次出队回收该结点
+ */
+public class PooledLockFreeLinkedQueue<T> {
+
+  /**
+   * 空指针
+   */
+  private static final int NIL = -1;
+
+  /**
+   * 元素，可见性由 next 的 CAS 与 volatile 读保证
+   */
+  private final Object[] items;
+
+  /**
+   * 每个结点的下一个结点：版本号与下标
+   */
+  private final AtomicLongArray next;
+
+  /**
+   * 空闲结点
+   */
+  private final ConcurrentIntFreeList free;
+
+  /**
+   * 头指针，指向哨兵结点
+   */
+  private final AtomicLong head;
+
+  /**
+   * 尾指针，可能落后真正的尾结点一个位置
+   */
+  private final AtomicLong tail;
+
+  /**
+   * @param capacity 队列容量
+   */
+  public PooledLockFreeLinkedQueue(int capacity) {
+    if (capacity <= 0 || capacity == Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("容量必须大于 0：" + capacity);
+    }
+    int nodes = capacity + 1;
+    items = new Object[nodes];
+    next = new AtomicLongArray(nodes);
+    free = new ConcurrentIntFreeList(nodes, true);
+    int dummy = free.pop();
+    next.set(dummy, pack(0, NIL));
+    head = new AtomicLong(pack(0, dummy));
+    tail = new AtomicLong(pack(0, dummy));
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    PooledLockFreeLinkedQueue<String> queue = new PooledLockFreeLinkedQueue<>(2);
+    System.out.println(queue.enqueue("a") + " " + queue.enqueue("b") + " " + queue.enqueue("c"));
+    queue.printAll();
+    System.out.println(queue.dequeue() + " " + queue.enqueue("c"));
+    queue.printAll();
+
+    // 4 个线程各自循环入队、出队，结点不断被复用，检查没有元素丢失或重复
+    PooledLockFreeLinkedQueue<Integer> numbers = new PooledLockFreeLinkedQueue<>(8);
+    int perThread = 200_000;
+    long[] sums = new long[4];
+    Thread[] threads = new Thread[sums.length];
+    for (int t = 0; t < threads.length; t++) {
+      int index = t;
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < perThread; i++) {
+          while (!numbers.enqueue(index * perThread + i)) {
+            Thread.yield();
+          }
+          Integer value;
+          while ((value = numbers.dequeue()) == null) {
+            Thread.yield();
+          }
+          sums[index] += value;
+        }
+      });
+      threads[t].start();
+    }
+    long sum = 0;
+    for (int t = 0; t < threads.length; t++) {
+      threads[t].join();
+      sum += sums[t];
+    }
+    long n = (long) threads.length * perThread;
+    System.out.println("出队元素之和正确：" + (sum == n * (n - 1) / 2) + "，队列为空：" + numbers.isEmpty());
+  }
+
+  /**
+   * 入队操作
+   *
+   * @param item 元素
+   * @return 没有空闲结点时返回 false
+   */
+  public boolean enqueue(T item) {
+    if (item == null) {
+      throw new NullPointerException();
+    }
+    int node = free.pop();
+    if (node == NIL) {
+      return false;
+    }
+    items[node] = item;
+    next.set(node, pack(versionOf(next.get(node)) + 1, NIL));
+    while (true) {
+      long t = tail.get();
+      long n = next.get(indexOf(t));
+      if (t != tail.get()) {
+        continue;
+      }
+      if (indexOf(n) == NIL) {
+        if (next.compareAndSet(indexOf(t), n, pack(versionOf(n) + 1, node))) {
+          tail.compareAndSet(t, pack(versionOf(t) + 1, node));
+          return true;
+        }
+      } else {
+        tail.compareAndSet(t, pack(versionOf(t) + 1, indexOf(n)));
+      }
+    }
+  }
+
+  /**
+   * 出队操作
+   *
+   * @return 队头元素，队列为空时返回 null
+   */
+  @SuppressWarnings("unchecked")
+  public T dequeue() {
+    while (true) {
+      long h = head.get();
+      long t = tail.get();
+      long n = next.get(indexOf(h));
+      // head 没有变化，说明读到的 next 属于当前的哨兵，而不是被复用后的结点
+      if (h != head.get()) {
+        continue;
+      }
+      int first = indexOf(n);
+      if (first == NIL) {
+        return null;
+      }
+      if (indexOf(h) == indexOf(t)) {
+        tail.compareAndSet(t, pack(versionOf(t) + 1, first));
+        continue;
+      }
+      // first 可能在 CAS 之前就被出队并复用，读到的元素无效，但此时 head 的版本号已经变化，CAS 会失败
+      T item = (T) items[first];
+      if (head.compareAndSet(h, pack(versionOf(h) + 1, first))) {
+        // 不能在这里清空 items[first]：first 成为哨兵后可能马上被其他线程出队、复用并写入新元素，
+        // 只有回收原来的哨兵时才清空，此时只有 CAS 成功的线程持有它。
+        // 其他线程即使还持有原来哨兵的下标，也会因为 head 版本号变化而重试
+        int sentinel = indexOf(h);
+        items[sentinel] = null;
+        free.push(sentinel);
+        return item;
+      }
+    }
+  }
+
+  /**
+   * 队列是否为空
+   *
+   * @return 是否为空
+   */
+  public boolean isEmpty() {
+    while (true) {
+      long h = head.get();
+      long n = next.get(indexOf(h));
+      if (h == head.get()) {
+        return indexOf(n) == NIL;
+      }
+    }
+  }
+
+  /**
+   * 队列容量
+   *
+   * @return 容量
+   */
+  public int capacity() {
+    return items.length - 1;
+  }
+
+  /**
+   * 打印队列，并发修改时只是某一时刻的近似结果
+   */
+  public void printAll() {
+    int p = indexOf(next.get(indexOf(head.get())));
+    if (p == NIL) {
+      System.out.println("队列为空");
+      return;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; p != NIL && i < items.length; i++) {
+      sb.append(items[p]).append(" ");
+      p = indexOf(next.get(p));
+    }
+    System.out.println(sb);
+  }
+
+  private static long pack(int version, int index) {
+    return ((long) version << 32) | (index & 0xFFFFFFFFL);
+  }
+
+  private static int versionOf(long pointer) {
+    return (int) (pointer >>> 32);
+  }
+
+  private static int indexOf(long pointer) {
+    return (int) pointer;
+  }
+
+}
@@ -0,0 +1,259 @@
+package com.kaige.datastructure.ch_09_queue;
+
+import com.kaige.datastructure.ch_06_linkedlist.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 9-5 有界并发队列的吞吐量与延迟对比
+ * <p>
+ * 生产者、消费者数量相同，生产者写入入队时的 System.nanoTime()，消费者出队后记录入队到出队的延迟。
+ * 对比无锁的 ConcurrentArrayQueue、入队出队两把锁的 BlockArrayQueue 以及一把锁的 JDK ArrayBlockingQueue，
+ * BlockArrayQueue 还测试了批量的 putAll、drainTo。
+ * 无锁队列满或空时调用 Thread.yield() 让出 CPU，两个阻塞队列使用 put、take 阻塞。
+ * 所有生产者结束后，每个消费者收到一个结束标记后退出
+ */
+public class QueueBenchmark {
+
+  /**
+   * 队列容量
+   */
+  private static final int capacity = 1024;
+
+  /**
+   * 每个生产者写入的元素数量
+   */
+  private static final int messagesPerProducer = 500_000;
+
+  /**
+   * 生产者（消费者）的数量
+   */
+  private static final int[] threadCounts = {1, 2, 4};
+
+  /**
+   * 批量入队、出队时每批的元素数量
+   */
+  private static final int batchSize = 64;
+
+  /**
+   * 结束标记
+   */
+  private static final Long POISON = Long.MIN_VALUE;
+
+  // 单核环境（吞吐量单位：个/ms，延迟单位：μs）：
+  // 1 对 1  ConcurrentArrayQueue 1935 p50 73 p99 3997  BlockArrayQueue 1805 p50 129 p99 4849  ArrayBlockingQueue 3993 p50 124 p99 475
+  //         BlockArrayQueue 批量 3723 p50 59 p99 294
+  // 2 对 2  ConcurrentArrayQueue 2184 p50 86 p99 2621  BlockArrayQueue 2574 p50 126 p99 3014  ArrayBlockingQueue 2420 p50 120 p99 2949
+  //         BlockArrayQueue 批量 3302 p50 86 p99 3407
+  // 4 对 4  ConcurrentArrayQueue 3850 p50 77 p99 3014  BlockArrayQueue 4229 p50 116 p99 237   ArrayBlockingQueue 4416 p50 106 p99 253
+  //         BlockArrayQueue 批量 4861 p50 67 p99 2293
+  // 单核上生产者与消费者轮流运行，一个元素从入队到出队至少要等一次线程切换，延迟主要是在队列中排队的时间，
+  // 吞吐量和 p99 受线程调度影响很大：多次运行中 ConcurrentArrayQueue 1 对 1 的吞吐量在 1935 到 7353 之间波动，
+  // 比队列之间的差距还大，比较稳定的只有 p50：无锁队列每次入队、出队只有一次 CAS 和一次有序写入，p50 延迟最低。
+  // 两把锁的 BlockArrayQueue 在单核上与一把锁的 ArrayBlockingQueue 相当，生产者与消费者不会真正同时执行，分开加锁没有收益；
+  // 批量的 putAll、drainTo 每批只加一次锁、唤醒一次，吞吐量和 p50 都好于逐个操作。多核上生产者与消费者真正并行，
+  // 两把锁让入队与出队互不阻塞，无锁队列的头尾指针在不同的缓存行上，生产者与消费者互不干扰
+  public static void main(String[] args) throws InterruptedException {
+    // 预热
+    run(new LockFreeQueue(), 1);
+    run(new LockQueue(), 1);
+    run(new JdkQueue(), 1);
+    runBatch(1);
+
+    for (int threads : threadCounts) {
+      System.out.printf("%d 对 %d\tConcurrentArrayQueue %s\tBlockArrayQueue %s\tArrayBlockingQueue %s%n", threads, threads,
+        run(new LockFreeQueue(), threads), run(new LockQueue(), threads), run(new JdkQueue(), threads));
+      System.out.printf("%d 对 %d\tBlockArrayQueue 批量 putAll/drainTo %s%n", threads, threads, runBatch(threads));
+    }
+  }
+
+  /**
+   * BlockArrayQueue 的批量压测：生产者每次 putAll 一批，消费者 task 等到第一个元素后 drainTo 取走其余元素
+   *
+   * @return 吞吐量与延迟
+   */
+  private static String runBatch(int threads) throws InterruptedException {
+    BlockArrayQueue<Long> queue = new BlockArrayQueue<>(capacity);
+    LatencyHistogram latency = new LatencyHistogram();
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch producersDone = new CountDownLatch(threads);
+    CountDownLatch consumersDone = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      new Thread(() -> {
+        List<Long> batch = new ArrayList<>(batchSize);
+        try {
+          start.await();
+          for (int i = 0; i < messagesPerProducer; i += batchSize) {
+            batch.clear();
+            for (int j = 0; j < batchSize && i + j < messagesPerProducer; j++) {
+              batch.add(System.nanoTime());
+            }
+            queue.putAll(batch);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          producersDone.countDown();
+        }
+      }).start();
+      new Thread(() -> {
+        List<Long> batch = new ArrayList<>(batchSize);
+        try {
+          start.await();
+          boolean stopped = false;
+          while (!stopped) {
+            batch.clear();
+            batch.add(queue.task());
+            queue.drainTo(batch, batchSize - 1);
+            long now = System.nanoTime();
+            for (Long sent : batch) {
+              if (!sent.equals(POISON)) {
+                latency.record(now - sent);
+              } else if (stopped) {
+                // 一次取到多个结束标记时，多余的放回去留给其他消费者
+                queue.put(POISON);
+              } else {
+                stopped = true;
+              }
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          consumersDone.countDown();
+        }
+      }).start();
+    }
+    long begin = System.nanoTime();
+    start.countDown();
+    producersDone.await();
+    for (int t = 0; t < threads; t++) {
+      queue.put(POISON);
+    }
+    consumersDone.await();
+    double millis = (System.nanoTime() - begin) / 1_000_000.0;
+    return String.format("%.0f 个/ms p50 %d μs p99 %d μs", (double) threads * messagesPerProducer / millis,
+      latency.percentile(50) / 1000, latency.percentile(99) / 1000);
+  }
+
+  /**
+   * 执行压测
+   *
+   * @return 吞吐量与延迟
+   */
+  private static String run(BoundedQueue queue, int threads) throws InterruptedException {
+    LatencyHistogram latency = new LatencyHistogram();
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch producersDone = new CountDownLatch(threads);
+    CountDownLatch consumersDone = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      new Thread(() -> {
+        try {
+          start.await();
+          for (int i = 0; i < messagesPerProducer; i++) {
+            queue.put(System.nanoTime());
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          producersDone.countDown();
+        }
+      }).start();
+      new Thread(() -> {
+        try {
+          start.await();
+          while (true) {
+            Long sent = queue.take();
+            if (sent.equals(POISON)) {
+              break;
+            }
+            latency.record(System.nanoTime() - sent);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          consumersDone.countDown();
+        }
+      }).start();
+    }
+    long begin = System.nanoTime();
+    start.countDown();
+    producersDone.await();
+    for (int t = 0; t < threads; t++) {
+      queue.put(POISON);
+    }
+    consumersDone.await();
+    double millis = (System.nanoTime() - begin) / 1_000_000.0;
+    return String.format("%.0f 个/ms p50 %d μs p99 %d μs", (double) threads * messagesPerProducer / millis,
+      latency.percentile(50) / 1000, latency.percentile(99) / 1000);
+  }
+
+  private interface BoundedQueue {
+
+    void put(Long value) throws InterruptedException;
+
+    Long take() throws InterruptedException;
+
+  }
+
+  /**
+   * 队列满或空时让出 CPU 后重试
+   */
+  private static class LockFreeQueue implements BoundedQueue {
+
+    private final ConcurrentArrayQueue<Long> queue = new ConcurrentArrayQueue<>(capacity);
+
+    @Override
+    public void put(Long value) {
+      while (!queue.offer(value)) {
+        Thread.yield();
+      }
+    }
+
+    @Override
+    public Long take() {
+      Long value;
+      while ((value = queue.poll()) == null) {
+        Thread.yield();
+      }
+      return value;
+    }
+
+  }
+
+  private static class LockQueue implements BoundedQueue {
+
+    private final BlockArrayQueue<Long> queue = new BlockArrayQueue<>(capacity);
+
+    @Override
+    public void put(Long value) throws InterruptedException {
+      queue.put(value);
+    }
+
+    @Override
+    public Long take() throws InterruptedException {
+      return queue.task();
+    }
+
+  }
+
+  private static class JdkQueue implements BoundedQueue {
+
+    private final ArrayBlockingQueue<Long> queue = new ArrayBlockingQueue<>(capacity);
+
+    @Override
+    public void put(Long value) throws InterruptedException {
+      queue.put(value);
+    }
+
+    @Override
+    public Long take() throws InterruptedException {
+      return queue.take();
+    }
+
+  }
+
+}
@@ -0,0 +1,336 @@
+package com.kaige.datastructure.ch_09_queue;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * 9-6 单生产者、单消费者的环形队列
+ * <p>
+ * ArrayQueue 的 count 字段入队、出队都要修改，多线程下生产者与消费者会争抢同一个缓存行。
+ * 只有一个生产者线程和一个消费者线程时，不需要锁也不需要 CAS：
+ * 1. 去掉 count，生产者只写 tail，消费者只写 head，容量为 2 的幂，下标用按位与计算；
+ * 2. tail、head 以及各自缓存的对方指针分别放在独立的缓存行中；
+ * 3. 生产者缓存上一次读到的 head，只有缓存的 head 显示队列已满时才重新读取 volatile 的 head，消费者同理，
+ * 大多数操作不会读取对方正在修改的缓存行；
+ * 4. 指针使用 lazySet 发布，只需要保证元素的写入在指针之前，不需要 volatile 写的完整屏障；
+ * 5. 批量接口 claim、write、publish：一次申请多个位置，写入后只发布一次指针
+ * <p>
+ * 非线程安全的部分由调用方保证：offer、claim、write、publish 只能在同一个生产者线程调用，poll、drain 只能在同一个消费者线程调用
+ */
+public class SpscArrayQueue<T> extends SpscConsumerFields {
+
+  long p20, p21, p22, p23, p24, p25, p26, p27;
+
+  /**
+   * 元素，可见性由 tail、head 的有序写入与 volatile 读取保证
+   */
+  private final Object[] items;
+
+  /**
+   * 容量减一
+   */
+  private final int mask;
+
+  /**
+   * @param capacity 容量，向上取整为 2 的幂
+   */
+  public SpscArrayQueue(int capacity) {
+    if (capacity <= 0 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("容量必须在 1 到 2^30 之间：" + capacity);
+    }
+    int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    items = new Object[size];
+    mask = size - 1;
+  }
+
+  /**
+   * 单核环境，1 个生产者、1 个消费者传递 5000 万个元素，消费者都用 drain 批量出队（单位：个/ms，两轮）：
+   * 逐个入队 105970 / 109182，批量入队 101178 / 137442，ConcurrentArrayQueue 逐个入队出队 22128 / 21998。
+   * 单生产者、单消费者不需要 CAS，也很少读取对方的缓存行，吞吐量约为多生产者多消费者队列的 5 倍；
+   * 批量入队在第二轮（JIT 编译完成后）比逐个入队再快约 25%
+   */
+  public static void main(String[] args) throws InterruptedException {
+    SpscArrayQueue<String> queue = new SpscArrayQueue<>(4);
+    queue.offer("a");
+    int claimed = queue.claim(10);
+    for (int i = 0; i < claimed; i++) {
+      queue.write(i, "b" + i);
+    }
+    queue.publish();
+    System.out.println("批量申请到的位置：" + claimed + "，队列已满：" + !queue.offer("c"));
+    System.out.print("批量出队：");
+    queue.drain(e -> System.out.print(e + " "), 10);
+    System.out.println();
+
+    int messages = 50_000_000;
+    for (int round = 0; round < 2; round++) {
+      System.out.printf("逐个入队：%.0f 个/ms\t批量入队：%.0f 个/ms\tConcurrentArrayQueue：%.0f 个/ms%n",
+        throughput(messages, 1), throughput(messages, 64), throughputMpmc(messages));
+    }
+  }
+
+  /**
+   * 1 个生产者、1 个消费者的吞吐量
+   *
+   * @param batch 生产者每次申请的位置数量，1 表示逐个 offer
+   */
+  private static double throughput(int messages, int batch) throws InterruptedException {
+    SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(1024);
+    Integer item = 1;
+    Thread producer = new Thread(() -> {
+      int sent = 0;
+      while (sent < messages) {
+        if (batch == 1) {
+          if (queue.offer(item)) {
+            sent++;
+          } else {
+            Thread.yield();
+          }
+          continue;
+        }
+        int n = queue.claim(Math.min(batch, messages - sent));
+        if (n == 0) {
+          Thread.yield();
+          continue;
+        }
+        for (int i = 0; i < n; i++) {
+          queue.write(i, item);
+        }
+        queue.publish();
+        sent += n;
+      }
+    });
+    long begin = System.nanoTime();
+    producer.start();
+    int[] received = {0};
+    while (received[0] < messages) {
+      if (queue.drain(e -> received[0]++, 1024) == 0) {
+        Thread.yield();
+      }
+    }
+    producer.join();
+    return messages / ((System.nanoTime() - begin) / 1_000_000.0);
+  }
+
+  private static double throughputMpmc(int messages) throws InterruptedException {
+    ConcurrentArrayQueue<Integer> queue = new ConcurrentArrayQueue<>(1024);
+    Integer item = 1;
+    Thread producer = new Thread(() -> {
+      for (int i = 0; i < messages; i++) {
+        while (!queue.offer(item)) {
+          Thread.yield();
+        }
+      }
+    });
+    long begin = System.nanoTime();
+    producer.start();
+    int received = 0;
+    while (received < messages) {
+      if (queue.poll() == null) {
+        Thread.yield();
+      } else {
+        received++;
+      }
+    }
+    producer.join();
+    return messages / ((System.nanoTime() - begin) / 1_000_000.0);
+  }
+
+  /**
+   * 入队，只能在生产者线程调用
+   *
+   * @param e 元素
+   * @return 队列已满时返回 false
+   */
+  public boolean offer(T e) {
+    if (e == null) {
+      throw new NullPointerException();
+    }
+    long t = tail;
+    if (t - cachedHead > mask) {
+      cachedHead = head;
+      if (t - cachedHead > mask) {
+        return false;
+      }
+    }
+    items[(int) t & mask] = e;
+    TAIL.lazySet(this, t + 1);
+    return true;
+  }
+
+  /**
+   * 申请最多 n 个连续的空闲位置，之后用 write 写入、publish 一次性发布，只能在生产者线程调用
+   *
+   * @param n 希望申请的位置数量
+   * @return 申请到的位置数量，队列已满时为 0
+   * @throws IllegalArgumentException n 小于 0
+   */
+  public int claim(int n) {
+    if (n < 0) {
+      throw new IllegalArgumentException("申请的位置数量不能小于 0：" + n);
+    }
+    long t = tail;
+    long free = mask + 1 - (t - cachedHead);
+    if (free < n) {
+      cachedHead = head;
+      free = mask + 1 - (t - cachedHead);
+    }
+    claimed = (int) Math.min(free, n);
+    return claimed;
+  }
+
+  /**
+   * 写入申请到的第 offset 个位置，publish 之前消费者看不到
+   *
+   * @param offset 位置，小于 claim 的返回值
+   * @param e      元素
+   */
+  public void write(int offset, T e) {
+    if (offset < 0 || offset >= claimed) {
+      throw new IndexOutOfBoundsException("偏移超出申请的范围：" + offset);
+    }
+    if (e == null) {
+      throw new NullPointerException();
+    }
+    items[(int) (tail + offset) & mask] = e;
+  }
+
+  /**
+   * 发布 claim 申请的所有位置，一次有序写入让这一批元素同时对消费者可见
+   */
+  public void publish() {
+    TAIL.lazySet(this, tail + claimed);
+    claimed = 0;
+  }
+
+  /**
+   * 出队，只能在消费者线程调用
+   *
+   * @return 队头元素，队列为空时返回 null
+   */
+  @SuppressWarnings("unchecked")
+  public T poll() {
+    long h = head;
+    if (h >= cachedTail) {
+      cachedTail = tail;
+      if (h >= cachedTail) {
+        return null;
+      }
+    }
+    int index = (int) h & mask;
+    T e = (T) items[index];
+    items[index] = null;
+    HEAD.lazySet(this, h + 1);
+    return e;
+  }
+
+  /**
+   * 批量出队，处理完后只发布一次 head，只能在消费者线程调用
+   *
+   * @param consumer    处理函数
+   * @param maxElements 最多出队的数量
+   * @return 出队的元素数量
+   */
+  @SuppressWarnings("unchecked")
+  public int drain(Consumer<? super T> consumer, int maxElements) {
+    long h = head;
+    if (cachedTail - h < maxElements) {
+      cachedTail = tail;
+    }
+    int n = (int) Math.min(cachedTail - h, maxElements);
+    for (int i = 0; i < n; i++) {
+      int index = (int) (h + i) & mask;
+      T e = (T) items[index];
+      items[index] = null;
+      consumer.accept(e);
+    }
+    if (n > 0) {
+      HEAD.lazySet(this, h + n);
+    }
+    return n;
+  }
+
+  /**
+   * 元素数量，并发修改时是近似值
+   *
+   * @return 元素数量
+   */
+  public int size() {
+    while (true) {
+      long h = head;
+      long t = tail;
+      if (h == head) {
+        return (int) (t - h);
+      }
+    }
+  }
+
+  public boolean isEmpty() {
+    return head == tail;
+  }
+
+  public int capacity() {
+    return mask + 1;
+  }
+
+}
+
+/**
+ * 以下几层父类把生产者、消费者的字段分别夹在填充字段之间，父类的字段总是排在子类之前，JVM 不会把它们重排到一起
+ */
+abstract class SpscPadding0 {
+
+  long p0, p1, p2, p3, p4, p5, p6, p7;
+
+}
+
+/**
+ * 生产者的字段：只有生产者写入
+ */
+abstract class SpscProducerFields extends SpscPadding0 {
+
+  static final AtomicLongFieldUpdater<SpscProducerFields> TAIL =
+    AtomicLongFieldUpdater.newUpdater(SpscProducerFields.class, "tail");
+
+  /**
+   * 下一个入队的位置
+   */
+  volatile long tail;
+
+  /**
+   * 生产者最近一次读到的 head
+   */
+  long cachedHead;
+
+  /**
+   * claim 申请到、还没有发布的位置数量
+   */
+  int claimed;
+
+}
+
+abstract class SpscPadding1 extends SpscProducerFields {
+
+  long p10, p11, p12, p13, p14, p15, p16, p17;
+
+}
+
+/**
+ * 消费者的字段：只有消费者写入
+ */
+abstract class SpscConsumerFields extends SpscPadding1 {
+
+  static final AtomicLongFieldUpdater<SpscConsumerFields> HEAD =
+    AtomicLongFieldUpdater.newUpdater(SpscConsumerFields.class, "head");
+
+  /**
+   * 下一个出队的位置
+   */
+  volatile long head;
+
+  /**
+   * 消费者最近一次读到的 tail
+   */
+  long cachedTail;
+
+}
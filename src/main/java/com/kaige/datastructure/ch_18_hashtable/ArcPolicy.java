@@ -0,0 +1,150 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import com.kaige.datastructure.ch_18_hashtable.LRUBaseHashTable.DNode;
+
+import java.util.function.Consumer;
+
+/**
+ * ARC（Adaptive Replacement Cache）淘汰策略
+ * <p>
+ * 1. T1 保存只访问过一次的结点（近期性），T2 保存访问过至少两次的结点（频率），都按 LRU 排列；
+ * 2. B1、B2 是幽灵链表，分别记录最近从 T1、T2 淘汰的 key；
+ * 3. 未命中的 key 在 B1 中，说明 T1 太小，增大 T1 的目标大小 p；在 B2 中，说明 T2 太小，减小 p；
+ * 4. 淘汰时 T1 超过 p 则淘汰 T1 的尾部结点，否则淘汰 T2 的尾部结点，缓存在近期性与频率之间自动调整
+ */
+public class ArcPolicy<K, V> implements EvictionPolicy<K, V> {
+
+  private static final int T1 = 0;
+
+  private static final int T2 = 1;
+
+  private final DNodeList<K, V> t1 = new DNodeList<>();
+
+  private final DNodeList<K, V> t2 = new DNodeList<>();
+
+  private final GhostList<K, V> b1 = new GhostList<>();
+
+  private final GhostList<K, V> b2 = new GhostList<>();
+
+  /**
+   * 缓存容量
+   */
+  private final int capacity;
+
+  /**
+   * T1 的目标大小，范围 0 ~ capacity
+   */
+  private int p;
+
+  /**
+   * 最近加入的结点，淘汰时不参与 T1 大小的比较
+   */
+  private DNode<K, V> lastAdded;
+
+  /**
+   * 最近加入的结点是否命中了 B2
+   */
+  private boolean lastHitB2;
+
+  /**
+   * @param capacity 缓存容量，与缓存的容量相同
+   */
+  public ArcPolicy(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("容量必须大于 0：" + capacity);
+    }
+    this.capacity = capacity;
+  }
+
+  @Override
+  public void onAdd(DNode<K, V> node) {
+    K key = node.key;
+    lastAdded = node;
+    lastHitB2 = false;
+    if (b1.contains(key)) {
+      // 刚从 T1 淘汰又被访问，增大 T1 的目标大小
+      int delta = b1.size() >= b2.size() ? 1 : b2.size() / b1.size();
+      p = Math.min(capacity, p + delta);
+      b1.remove(key);
+      node.queue = T2;
+      t2.addFirst(node);
+    } else if (b2.contains(key)) {
+      // 刚从 T2 淘汰又被访问，减小 T1 的目标大小
+      int delta = b2.size() >= b1.size() ? 1 : b1.size() / b2.size();
+      p = Math.max(0, p - delta);
+      b2.remove(key);
+      lastHitB2 = true;
+      node.queue = T2;
+      t2.addFirst(node);
+    } else {
+      node.queue = T1;
+      t1.addFirst(node);
+    }
+  }
+
+  @Override
+  public void onAccess(DNode<K, V> node) {
+    // 再次访问的结点进入 T2 头部
+    if (node.queue == T1) {
+      t1.remove(node);
+      node.queue = T2;
+      t2.addFirst(node);
+    } else {
+      t2.moveToFirst(node);
+    }
+  }
+
+  @Override
+  public void onRemove(DNode<K, V> node) {
+    if (node == lastAdded) {
+      lastAdded = null;
+    }
+    (node.queue == T1 ? t1 : t2).remove(node);
+  }
+
+  @Override
+  public DNode<K, V> evict() {
+    int t1Size = t1.size();
+    if (lastAdded != null && lastAdded.queue == T1) {
+      t1Size--;
+    }
+    DNode<K, V> victim;
+    if (t1Size >= 1 && (t1Size > p || (lastHitB2 && t1Size == p)) || t2.isEmpty()) {
+      victim = t1.pollLast();
+      if (victim != null) {
+        b1.addFirst(victim.key);
+      }
+    } else {
+      victim = t2.pollLast();
+      b2.addFirst(victim.key);
+    }
+    // 幽灵链表的长度限制：T1 + B1 不超过容量，总长度不超过 2 倍容量
+    while (t1.size() + b1.size() > capacity && !b1.isEmpty()) {
+      b1.removeLast();
+    }
+    // 按权重限制容量时，缓存中的结点数量可能超过 capacity，幽灵链表删空后就不再删除
+    while (t1.size() + t2.size() + b1.size() + b2.size() > 2 * capacity && (!b1.isEmpty() || !b2.isEmpty())) {
+      if (!b2.isEmpty()) {
+        b2.removeLast();
+      } else {
+        b1.removeLast();
+      }
+    }
+    if (victim == lastAdded) {
+      lastAdded = null;
+    }
+    return victim;
+  }
+
+  @Override
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public void forEach(Consumer<DNode<K, V>> action) {
+    t2.forEach(action);
+    t1.forEach(action);
+  }
+
+}
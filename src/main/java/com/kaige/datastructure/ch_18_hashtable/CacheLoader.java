@@ -0,0 +1,54 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 缓存加载函数
+ * <p>
+ * 缓存未命中时由 LoadingCache 调用，从后端读取数据
+ */
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+
+  /**
+   * 加载单个 key
+   *
+   * @param key 键
+   * @return 值，返回 null 表示不存在，不会写入缓存
+   * @throws Exception 加载异常
+   */
+  V load(K key) throws Exception;
+
+  /**
+   * 批量加载，默认逐个调用 load，后端支持批量查询时应该覆盖此方法，一次调用完成加载
+   *
+   * @param keys 键
+   * @return 加载到的值，不存在的 key 可以不放入结果
+   * @throws Exception 加载异常
+   */
+  default Map<K, V> loadAll(Set<? extends K> keys) throws Exception {
+    Map<K, V> result = new HashMap<>();
+    for (K key : keys) {
+      V value = load(key);
+      if (value != null) {
+        result.put(key, value);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * 刷新已有的值，默认重新加载
+   *
+   * @param key      键
+   * @param oldValue 旧值
+   * @return 新值，返回 null 表示不存在，会从缓存中删除
+   * @throws Exception 加载异常
+   */
+  default V reload(K key, V oldValue) throws Exception {
+    return load(key);
+  }
+
+}
@@ -0,0 +1,263 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import com.kaige.datastructure.ch_18_hashtable.LRUBaseHashTable.DNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存快照文件的读写
+ * <p>
+ * 文件格式：
+ * 1. 文件头 16 字节：魔数、版本号、元素数量（long）；
+ * 2. 之后按照淘汰策略的顺序从最热到最冷依次写入每个元素：
+ * [记录长度][key 长度][key][value 长度][value][剩余存活时间][记录长度]，剩余存活时间为 -1 表示没有设置；
+ * 3. 记录的首尾都有长度，可以从文件末尾向前逐条读取。
+ * <p>
+ * 读写都通过内存映射文件分段进行，每次只映射一个窗口，不需要把整个文件读入堆内存。
+ * 写入时先写同一目录下的临时文件，刷盘后原子地替换快照文件，写到一半失败不会破坏原来的快照。
+ * <p>
+ * 恢复时从最冷的元素开始向前读取并依次写入缓存，最热的元素最后写入。快照只保存元素的顺序，不保存淘汰策略的内部状态：
+ * 1. LRU 这类只按访问顺序淘汰的策略能恢复出原来的顺序，快照比缓存容量大时，最冷的元素先被淘汰；
+ * 2. W-TinyLFU 的频率统计、窗口区与试用区、保护区的划分都不会恢复，元素按新写入处理，先进入窗口区，
+ * 再由准入过滤器决定能否进入主缓存，恢复后的顺序与原来不同，快照比缓存容量大时被淘汰的也不一定是最冷的元素；
+ * ARC、2Q 的历史记录同样不会恢复
+ */
+class CacheSnapshot {
+
+  private static final int MAGIC = 0x4C525553;
+
+  private static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 16;
+
+  /**
+   * key 和 value 都为空时的记录长度：两个长度与剩余存活时间
+   */
+  private static final int MIN_RECORD = 2 * Integer.BYTES + Long.BYTES;
+
+  /**
+   * 每次映射的窗口大小
+   */
+  private static final int WINDOW = 64 << 20;
+
+  private CacheSnapshot() {
+  }
+
+  /**
+   * 写入快照
+   *
+   * @param cache           缓存
+   * @param file            快照文件，已存在时原子地替换
+   * @param keySerializer   key 的序列化函数
+   * @param valueSerializer value 的序列化函数
+   * @return 写入的元素数量
+   * @throws IOException 写入异常
+   */
+  static <K, V> long write(LRUBaseHashTable<K, V> cache, Path file,
+    Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      long count = writeTemp(cache, temp, keySerializer, valueSerializer);
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      return count;
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * 把快照写入临时文件并刷盘
+   */
+  private static <K, V> long writeTemp(LRUBaseHashTable<K, V> cache, Path temp,
+    Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      Writer writer = new Writer(channel);
+      long now = cache.currentTime();
+      long[] count = {0};
+      try {
+        cache.forEachNode(node -> {
+          long remaining = -1;
+          if (node.ttl > 0) {
+            remaining = node.writeTime + node.ttl - now;
+            if (remaining <= 0) {
+              // 已经过期的元素不写入
+              return;
+            }
+          }
+          writer.append(keySerializer.serialize(node.key), valueSerializer.serialize(node.value), remaining);
+          count[0]++;
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      long end = writer.finish();
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC).putInt(VERSION).putLong(count[0]).flip();
+      channel.write(header, 0);
+      channel.truncate(end);
+      channel.force(true);
+      return count[0];
+    }
+  }
+
+  /**
+   * 从快照恢复，元素写入已有的缓存中
+   *
+   * @param cache           缓存
+   * @param file            快照文件
+   * @param keySerializer   key 的序列化函数
+   * @param valueSerializer value 的序列化函数
+   * @return 读取的元素数量
+   * @throws IOException 读取异常或文件格式错误
+   */
+  static <K, V> long read(LRUBaseHashTable<K, V> cache, Path file,
+    Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE) {
+        throw new IOException("快照文件不完整：" + file);
+      }
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      channel.read(header, 0);
+      header.flip();
+      if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+        throw new IOException("不是快照文件或版本不支持：" + file);
+      }
+      long count = header.getLong();
+      Reader reader = new Reader(channel);
+      long position = size;
+      for (long i = 0; i < count; i++) {
+        if (position - Integer.BYTES < HEADER_SIZE) {
+          throw new IOException("快照文件不完整：" + file);
+        }
+        // 从后向前：先读记录末尾的长度，再读整条记录
+        int length = reader.window(position - Integer.BYTES, Integer.BYTES).getInt();
+        long start = position - length - 2L * Integer.BYTES;
+        if (length < MIN_RECORD || start < HEADER_SIZE) {
+          throw new IOException("快照文件已损坏：" + file);
+        }
+        ByteBuffer record = reader.window(start, Integer.BYTES + length);
+        // 记录开头的长度与末尾的一致，key 和 value 的长度之和正好填满记录
+        int keyLength = record.getInt() == length ? record.getInt() : -1;
+        if (keyLength < 0 || keyLength > length - MIN_RECORD) {
+          throw new IOException("快照文件已损坏：" + file);
+        }
+        byte[] key = new byte[keyLength];
+        record.get(key);
+        int valueLength = record.getInt();
+        if (valueLength != length - MIN_RECORD - keyLength) {
+          throw new IOException("快照文件已损坏：" + file);
+        }
+        byte[] value = new byte[valueLength];
+        record.get(value);
+        long remaining = record.getLong();
+        if (remaining > 0) {
+          cache.add(keySerializer.deserialize(key), valueSerializer.deserialize(value),
+            remaining, TimeUnit.NANOSECONDS);
+        } else {
+          cache.add(keySerializer.deserialize(key), valueSerializer.deserialize(value));
+        }
+        position = start;
+      }
+      return count;
+    }
+  }
+
+  /**
+   * 分段映射写入，一条记录不会跨越两个窗口
+   */
+  private static class Writer {
+
+    private final FileChannel channel;
+
+    /**
+     * 当前窗口在文件中的起始位置
+     */
+    private long base;
+
+    private MappedByteBuffer buffer;
+
+    Writer(FileChannel channel) throws IOException {
+      this.channel = channel;
+      base = HEADER_SIZE;
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, base, WINDOW);
+    }
+
+    void append(byte[] key, byte[] value, long remaining) {
+      int length = MIN_RECORD + key.length + value.length;
+      ensureCapacity(length + 2 * Integer.BYTES);
+      buffer.putInt(length);
+      buffer.putInt(key.length).put(key);
+      buffer.putInt(value.length).put(value);
+      buffer.putLong(remaining);
+      buffer.putInt(length);
+    }
+
+    /**
+     * 写入完成
+     *
+     * @return 文件的实际长度
+     */
+    long finish() {
+      buffer.force();
+      return base + buffer.position();
+    }
+
+    private void ensureCapacity(int needed) {
+      if (buffer.remaining() >= needed) {
+        return;
+      }
+      try {
+        buffer.force();
+        base += buffer.position();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, base, Math.max(WINDOW, needed));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+  }
+
+  /**
+   * 分段映射读取，从文件末尾向前移动窗口
+   */
+  private static class Reader {
+
+    private final FileChannel channel;
+
+    private long base = -1;
+
+    private MappedByteBuffer buffer;
+
+    Reader(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    /**
+     * 返回覆盖 [position, position + length) 的缓冲区，当前窗口不够时重新映射一个以 position + length 结尾的窗口
+     */
+    ByteBuffer window(long position, int length) throws IOException {
+      long end = position + length;
+      if (buffer == null || position < base || end > base + buffer.capacity()) {
+        base = Math.max(0, end - Math.max(WINDOW, length));
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, end - base);
+      }
+      ByteBuffer view = buffer.duplicate();
+      view.position((int) (position - base));
+      view.limit((int) (end - base));
+      return view;
+    }
+
+  }
+
+}
@@ -0,0 +1,359 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import com.kaige.datastructure.ch_06_linkedlist.CacheStats;
+import com.kaige.datastructure.ch_06_linkedlist.StatsCounter;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+/**
+ * 18-3 分段加锁的并发 LRU 缓存
+ * <p>
+ * 特点：
+ * 1. 按照 key 的哈希值把数据分到 N 个段中，每个段是一个独立的 LRUBaseHashTable，有自己的哈希表、双向链表和锁；
+ * 2. get 也会修改链表，所以同样需要加锁，但只锁 key 所在的段，不同段之间的读写互不影响；
+ * 3. 每个段独立淘汰，整体上是近似的 LRU
+ * 4. 所有段共享一个统计计数器，ConcurrentStatsCounter 基于 LongAdder，多个段同时计数不会互相争抢
+ * 5. 过期的元素除了在读写时回收，还可以交给定时任务在后台逐段回收，避免长时间不访问的段一直占着内存
+ */
+public class ConcurrentLRUHashTable<K, V> {
+
+  /**
+   * 默认的段数量
+   */
+  private static final int DEFAULT_SEGMENTS = 16;
+
+  /**
+   * 最大段数量，每个段都有自己的哈希表和锁，段再多也不会减少竞争
+   */
+  private static final int MAX_SEGMENTS = 1 << 16;
+
+  /**
+   * 段
+   */
+  private final LRUBaseHashTable<K, V>[] segments;
+
+  /**
+   * 每个段的锁
+   */
+  private final ReentrantLock[] locks;
+
+  /**
+   * 段数量减一，段数量为 2 的幂次方
+   */
+  private final int segmentMask;
+
+  /**
+   * 所有段共享的统计计数器
+   */
+  private volatile StatsCounter statsCounter = StatsCounter.disabled();
+
+  /**
+   * 构建指定容量与段数量的缓存
+   *
+   * @param capacity      总容量，平均分配到每个段
+   * @param segmentsCount 段数量，会向上取整为 2 的幂次方，最大为 65536
+   */
+  public ConcurrentLRUHashTable(int capacity, int segmentsCount) {
+    this(segmentsCount, capacityFactory(capacity));
+  }
+
+  /**
+   * 按照总权重限制容量
+   *
+   * @param maximumWeight 最大总权重，平均分配到每个段
+   * @param weigher       权重函数
+   * @param segmentsCount 段数量，会向上取整为 2 的幂次方，最大为 65536
+   */
+  public ConcurrentLRUHashTable(long maximumWeight, Weigher<K, V> weigher, int segmentsCount) {
+    this(segmentsCount, weightFactory(maximumWeight, weigher));
+  }
+
+  /**
+   * @param segmentsCount  段数量，会向上取整为 2 的幂次方
+   * @param segmentFactory 段的构建函数，参数为实际的段数量
+   */
+  private ConcurrentLRUHashTable(int segmentsCount, IntFunction<LRUBaseHashTable<K, V>> segmentFactory) {
+    if (segmentsCount <= 0 || segmentsCount > MAX_SEGMENTS) {
+      throw new IllegalArgumentException("段数量必须在 1 到 " + MAX_SEGMENTS + " 之间：" + segmentsCount);
+    }
+    int n = segmentsCount == 1 ? 1 : Integer.highestOneBit(segmentsCount - 1) << 1;
+    segmentMask = n - 1;
+    @SuppressWarnings("unchecked")
+    LRUBaseHashTable<K, V>[] table = (LRUBaseHashTable<K, V>[]) new LRUBaseHashTable<?, ?>[n];
+    segments = table;
+    locks = new ReentrantLock[n];
+    for (int i = 0; i < n; i++) {
+      segments[i] = segmentFactory.apply(n);
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  public ConcurrentLRUHashTable(int capacity) {
+    this(capacity, DEFAULT_SEGMENTS);
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    ConcurrentLRUHashTable<Integer, String> cache = new ConcurrentLRUHashTable<>(64, 4);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      int offset = t;
+      threads[t] = new Thread(() -> {
+        for (int i = offset; i < 100; i += threads.length) {
+          cache.add(i, "v" + i);
+          cache.get(i / 2);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    System.out.println("缓存元素数量：" + cache.size());
+    cache.printAll();
+
+    // 后台回收过期元素
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    ConcurrentLRUHashTable<Integer, String> expiring = new ConcurrentLRUHashTable<>(64, 4);
+    ScheduledFuture<?> cleaner = expiring.scheduleCleanUp(executor, 10, TimeUnit.MILLISECONDS);
+    for (int i = 0; i < 32; i++) {
+      expiring.add(i, "v" + i, i < 16 ? 50 : 10_000, TimeUnit.MILLISECONDS);
+    }
+    Thread.sleep(200);
+    System.out.println("后台回收后的元素数量：" + expiring.size());
+    cleaner.cancel(false);
+    executor.shutdown();
+  }
+
+  /**
+   * 添加元素
+   *
+   * @param key   键
+   * @param value 值
+   */
+  public void add(K key, V value) {
+    int index = segmentIndex(key);
+    ReentrantLock lock = locks[index];
+    lock.lock();
+    try {
+      segments[index].add(key, value);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 添加元素，并指定该元素的存活时间
+   *
+   * @param key      键
+   * @param value    值
+   * @param duration 存活时间
+   * @param unit     时间单位
+   */
+  public void add(K key, V value, long duration, TimeUnit unit) {
+    int index = segmentIndex(key);
+    ReentrantLock lock = locks[index];
+    lock.lock();
+    try {
+      segments[index].add(key, value, duration, unit);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 获取元素，同时更新该元素在所在段中的访问顺序
+   *
+   * @param key 键
+   * @return 值，不存在时返回 null
+   */
+  public V get(K key) {
+    return get(key, true);
+  }
+
+  /**
+   * 获取元素
+   *
+   * @param key         键
+   * @param recordStats 是否计入命中、未命中
+   * @return 值，不存在时返回 null
+   */
+  V get(K key, boolean recordStats) {
+    int index = segmentIndex(key);
+    ReentrantLock lock = locks[index];
+    lock.lock();
+    try {
+      return segments[index].get(key, recordStats);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 移出元素
+   *
+   * @param key 键
+   */
+  public void remove(K key) {
+    int index = segmentIndex(key);
+    ReentrantLock lock = locks[index];
+    lock.lock();
+    try {
+      segments[index].remove(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 缓存中的元素数量，逐段加锁统计
+   *
+   * @return 元素数量
+   */
+  public int size() {
+    int size = 0;
+    for (int i = 0; i < segments.length; i++) {
+      locks[i].lock();
+      try {
+        size += segments[i].size();
+      } finally {
+        locks[i].unlock();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * 设置所有段的访问后过期时间
+   *
+   * @param duration 过期时间，0 表示不启用
+   * @param unit     时间单位
+   */
+  public void setExpireAfterAccess(long duration, TimeUnit unit) {
+    for (int i = 0; i < segments.length; i++) {
+      locks[i].lock();
+      try {
+        segments[i].setExpireAfterAccess(duration, unit);
+      } finally {
+        locks[i].unlock();
+      }
+    }
+  }
+
+  /**
+   * 逐段回收过期元素，每次只持有一个段的锁
+   */
+  public void cleanUp() {
+    for (int i = 0; i < segments.length; i++) {
+      locks[i].lock();
+      try {
+        segments[i].cleanUp();
+      } finally {
+        locks[i].unlock();
+      }
+    }
+  }
+
+  /**
+   * 定时在后台回收过期元素
+   *
+   * @param executor 执行定时任务的线程池
+   * @param period   回收间隔
+   * @param unit     时间单位
+   * @return 定时任务，取消即可停止后台回收
+   */
+  public ScheduledFuture<?> scheduleCleanUp(ScheduledExecutorService executor, long period, TimeUnit unit) {
+    return executor.scheduleWithFixedDelay(this::cleanUp, period, period, unit);
+  }
+
+  /**
+   * 设置所有段共享的统计计数器，计数器需要是线程安全的，例如 ConcurrentStatsCounter
+   *
+   * @param statsCounter 计数器，StatsCounter.disabled() 表示不统计
+   */
+  public void setStatsCounter(StatsCounter statsCounter) {
+    for (int i = 0; i < segments.length; i++) {
+      locks[i].lock();
+      try {
+        segments[i].setStatsCounter(statsCounter);
+      } finally {
+        locks[i].unlock();
+      }
+    }
+    this.statsCounter = statsCounter;
+  }
+
+  /**
+   * 统计数据，当前总权重逐段加锁统计
+   *
+   * @return 统计数据快照
+   */
+  public CacheStats stats() {
+    long weightedSize = 0;
+    for (int i = 0; i < segments.length; i++) {
+      locks[i].lock();
+      try {
+        weightedSize += segments[i].weightedSize();
+      } finally {
+        locks[i].unlock();
+      }
+    }
+    return statsCounter.snapshot().withWeightedSize(weightedSize);
+  }
+
+  public void printAll() {
+    for (int i = 0; i < segments.length; i++) {
+      locks[i].lock();
+      try {
+        System.out.print("段 " + i + "：");
+        segments[i].printAll();
+      } finally {
+        locks[i].unlock();
+      }
+    }
+  }
+
+  /**
+   * 计算 key 所在的段，高 16 位参与运算，让分布更均匀
+   *
+   * @param key 键
+   * @return 段下标
+   */
+  private int segmentIndex(K key) {
+    int h = key == null ? 0 : key.hashCode();
+    h ^= h >>> 16;
+    return h & segmentMask;
+  }
+
+  /**
+   * 按照容量平均分配的段构建函数，在构建任何段之前检查容量
+   *
+   * @param capacity 总容量
+   * @return 段的构建函数，参数为实际的段数量
+   */
+  private static <K, V> IntFunction<LRUBaseHashTable<K, V>> capacityFactory(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("容量必须大于 0");
+    }
+    return n -> new LRUBaseHashTable<>(Math.max(1, (capacity + n - 1) / n));
+  }
+
+  /**
+   * 按照总权重平均分配的段构建函数，在构建任何段之前检查最大总权重
+   *
+   * @param maximumWeight 最大总权重
+   * @param weigher       权重函数
+   * @return 段的构建函数，参数为实际的段数量
+   */
+  private static <K, V> IntFunction<LRUBaseHashTable<K, V>> weightFactory(long maximumWeight, Weigher<K, V> weigher) {
+    if (maximumWeight <= 0) {
+      throw new IllegalArgumentException("最大总权重必须大于 0");
+    }
+    return n -> new LRUBaseHashTable<>((maximumWeight + n - 1) / n, weigher);
+  }
+
+}
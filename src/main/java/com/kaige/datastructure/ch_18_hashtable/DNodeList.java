@@ -0,0 +1,132 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import com.kaige.datastructure.ch_18_hashtable.LRUBaseHashTable.DNode;
+
+import java.util.function.Consumer;
+
+/**
+ * 带头尾哨兵结点的双向链表
+ * <p>
+ * 头部是最近访问的结点，尾部是最久未访问的结点，各个淘汰策略用它来维护自己的队列
+ */
+class DNodeList<K, V> {
+
+  /**
+   * 头结点
+   */
+  private final DNode<K, V> head;
+
+  /**
+   * 尾结点
+   */
+  private final DNode<K, V> tail;
+
+  /**
+   * 链表长度
+   */
+  private int size;
+
+  DNodeList() {
+    // 头尾指针都是哨兵结点
+    head = new DNode<>();
+    tail = new DNode<>();
+    head.next = tail;
+    tail.prev = head;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * 添加结点到链表头部
+   *
+   * @param node 结点
+   */
+  void addFirst(DNode<K, V> node) {
+    node.next = head.next;
+    node.prev = head;
+    head.next.prev = node;
+    head.next = node;
+    size++;
+  }
+
+  /**
+   * 添加结点到链表尾部
+   *
+   * @param node 结点
+   */
+  void addLast(DNode<K, V> node) {
+    node.prev = tail.prev;
+    node.next = tail;
+    tail.prev.next = node;
+    tail.prev = node;
+    size++;
+  }
+
+  /**
+   * 移除结点
+   * <p>
+   * 修改结点的前驱指针结点
+   * 修改结点的后继指针结点
+   *
+   * @param node 结点
+   */
+  void remove(DNode<K, V> node) {
+    node.prev.next = node.next;
+    node.next.prev = node.prev;
+    node.prev = null;
+    node.next = null;
+    size--;
+  }
+
+  /**
+   * 移动结点到头部
+   *
+   * @param node 结点
+   */
+  void moveToFirst(DNode<K, V> node) {
+    remove(node);
+    addFirst(node);
+  }
+
+  /**
+   * 查看尾部数据结点
+   *
+   * @return 尾部结点，链表为空时返回 null
+   */
+  DNode<K, V> peekLast() {
+    return size == 0 ? null : tail.prev;
+  }
+
+  /**
+   * 弹出尾部数据结点
+   *
+   * @return 尾部结点，链表为空时返回 null
+   */
+  DNode<K, V> pollLast() {
+    if (size == 0) {
+      return null;
+    }
+    // 尾结点是哨兵结点，需要获取它的前一个结点
+    DNode<K, V> node = tail.prev;
+    remove(node);
+    return node;
+  }
+
+  /**
+   * 从头到尾遍历结点
+   *
+   * @param action 操作
+   */
+  void forEach(Consumer<DNode<K, V>> action) {
+    for (DNode<K, V> n = head.next; n != tail; n = n.next) {
+      action.accept(n);
+    }
+  }
+
+}
@@ -0,0 +1,58 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import com.kaige.datastructure.ch_18_hashtable.LRUBaseHashTable.DNode;
+
+import java.util.function.Consumer;
+
+/**
+ * 缓存淘汰策略
+ * <p>
+ * 哈希表只负责按 key 查找结点，结点的排列顺序以及淘汰哪个结点由策略决定
+ */
+public interface EvictionPolicy<K, V> {
+
+  /**
+   * 新结点加入缓存
+   *
+   * @param node 结点
+   */
+  void onAdd(DNode<K, V> node);
+
+  /**
+   * 结点被访问，包括 get 命中与更新已有的 key
+   *
+   * @param node 结点
+   */
+  void onAccess(DNode<K, V> node);
+
+  /**
+   * 结点被主动移出缓存
+   *
+   * @param node 结点
+   */
+  void onRemove(DNode<K, V> node);
+
+  /**
+   * 选出一个需要淘汰的结点，并从策略自己的队列中摘除
+   *
+   * @return 淘汰的结点，缓存为空时返回 null
+   */
+  DNode<K, V> evict();
+
+  /**
+   * 从最热到最冷遍历结点
+   *
+   * @param action 操作
+   */
+  void forEach(Consumer<DNode<K, V>> action);
+
+  /**
+   * 策略按照多少个结点划分内部队列，缓存按数量限制容量时必须与缓存容量相同
+   *
+   * @return 结点数量，0 表示与缓存容量无关
+   */
+  default int capacity() {
+    return 0;
+  }
+
+}
@@ -0,0 +1,128 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import java.util.Objects;
+
+/**
+ * Count-Min Sketch 频率统计
+ * <p>
+ * 1. 用 4 个哈希函数把元素映射到 4 个 4 位计数器上，频率取 4 个计数器中的最小值，最大计到 15；
+ * 2. 每个 long 存放 16 个计数器，一个元素的 4 个计数器都在同一个 long 中的不同分组里；
+ * 3. 累计增加次数达到采样上限时，所有计数器减半（老化），让过去的热点逐渐冷却；
+ * 4. 缓存允许 null 作为 key，null 的哈希值为 0
+ */
+class FrequencySketch<K> {
+
+  /**
+   * 4 个哈希函数的种子
+   */
+  private static final long[] SEED = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+  /**
+   * 每个 4 位计数器都右移一位，再清除从相邻计数器移过来的最高位
+   */
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private final long[] table;
+
+  private final int tableMask;
+
+  /**
+   * 采样上限，一般为缓存容量的 10 倍
+   */
+  private final int sampleSize;
+
+  /**
+   * 自上次老化以来的增加次数
+   */
+  private int size;
+
+  /**
+   * @param maximumSize 缓存容量
+   */
+  FrequencySketch(int maximumSize) {
+    int capacity = Math.max(1, maximumSize);
+    int length = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    table = new long[Math.max(length, 8)];
+    tableMask = table.length - 1;
+    sampleSize = 10 * capacity;
+  }
+
+  /**
+   * 查询元素的频率估计值
+   *
+   * @param e 元素
+   * @return 频率，范围 0~15
+   */
+  int frequency(K e) {
+    int hash = spread(Objects.hashCode(e));
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      int index = indexOf(hash, i);
+      int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * 元素频率加一，已经到达 15 的计数器不再增加
+   *
+   * @param e 元素
+   */
+  void increment(K e) {
+    int hash = spread(Objects.hashCode(e));
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && ++size == sampleSize) {
+      reset();
+    }
+  }
+
+  /**
+   * 计数器 j 加一
+   *
+   * @param i long 的下标
+   * @param j 计数器在 long 中的位置，范围 0~15
+   * @return 是否增加成功
+   */
+  private boolean incrementAt(int i, int j) {
+    int offset = j << 2;
+    long mask = 0xfL << offset;
+    if ((table[i] & mask) != mask) {
+      table[i] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * 老化：所有计数器减半
+   */
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = size >>> 1;
+  }
+
+  private int indexOf(int item, int i) {
+    long hash = (item + SEED[i]) * SEED[i];
+    hash += hash >>> 32;
+    return ((int) hash) & tableMask;
+  }
+
+  /**
+   * 对 hashCode 再做一次混淆，避免质量差的 hashCode 集中到少数计数器上
+   */
+  private static int spread(int x) {
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+
+}
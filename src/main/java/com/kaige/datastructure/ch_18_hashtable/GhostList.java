@@ -0,0 +1,67 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import com.kaige.datastructure.ch_18_hashtable.LRUBaseHashTable.DNode;
+
+import java.util.HashMap;
+
+/**
+ * 幽灵链表
+ * <p>
+ * 只记录最近被淘汰的 key，不保存值，用于 ARC、2Q 判断一个未命中的 key 是否刚刚被淘汰过。
+ * 与缓存本身一样由 HashMap 与 DNodeList 组成，查找、加入、删除都是 O(1)
+ */
+class GhostList<K, V> {
+
+  private final HashMap<K, DNode<K, V>> table = new HashMap<>();
+
+  private final DNodeList<K, V> list = new DNodeList<>();
+
+  int size() {
+    return table.size();
+  }
+
+  boolean isEmpty() {
+    return table.isEmpty();
+  }
+
+  boolean contains(K key) {
+    return table.containsKey(key);
+  }
+
+  /**
+   * 记录刚被淘汰的 key，放在链表头部
+   *
+   * @param key 键
+   */
+  void addFirst(K key) {
+    DNode<K, V> node = new DNode<>(key, null);
+    table.put(key, node);
+    list.addFirst(node);
+  }
+
+  /**
+   * 删除 key
+   *
+   * @param key 键
+   * @return key 是否存在
+   */
+  boolean remove(K key) {
+    DNode<K, V> node = table.remove(key);
+    if (node == null) {
+      return false;
+    }
+    list.remove(node);
+    return true;
+  }
+
+  /**
+   * 删除最早记录的 key
+   */
+  void removeLast() {
+    DNode<K, V> node = list.pollLast();
+    if (node != null) {
+      table.remove(node.key);
+    }
+  }
+
+}
@@ -1,6 +1,17 @@
 package com.kaige.datastructure.ch_18_hashtable;
 
+import com.kaige.datastructure.ch_06_linkedlist.CacheStats;
+import com.kaige.datastructure.ch_06_linkedlist.ConcurrentStatsCounter;
+import com.kaige.datastructure.ch_06_linkedlist.StatsCounter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 /**
  * 18-2 基于哈希表的 LRU 缓存淘汰算法
@@ -9,6 +20,12 @@ import java.util.HashMap;
  * 1. 查找时间复杂度为 O(1)
  * 2. 淘汰最近最少使用的元素
  * 3. 基于哈希表与链表实现
+ * 4. 淘汰策略可以替换，默认为 LRU，也可以使用 W-TinyLFU 等策略
+ * 5. 可以指定权重函数，按照总权重（例如字节数）而不是元素数量限制容量，总权重增量维护，写入仍然是 O(1)
+ * 6. 支持每个元素单独的存活时间（TTL）和访问后过期，过期的元素由分层时间轮回收，不需要扫描整个表：
+ * 读取时发现过期立即删除（惰性），每次读写顺带推进时间轮（均摊），也可以定时调用 cleanUp（后台）
+ * 7. 可以开启命中、未命中、淘汰次数以及 get、add 耗时分布的统计，默认关闭
+ * 8. 可以把缓存内容连同访问顺序写入快照文件，重启后从快照恢复，避免冷启动
  */
 public class LRUBaseHashTable<K, V> {
 
@@ -18,44 +35,103 @@ public class LRUBaseHashTable<K, V> {
   public static final int DEFAULT_INITIAL_CAPACITY = 10;
 
   /**
-   * 头结点
+   * 哈希表，记录键
    */
-  private final DNode<K, V> head;
-
+  private final HashMap<K, DNode<K, V>> table;
+  
   /**
-   * 尾结点
+   * 淘汰策略，负责维护结点的顺序
    */
-  private final DNode<K, V> tail;
+  private final EvictionPolicy<K, V> policy;
 
   /**
-   * 哈希表，记录键
+   * 权重函数，默认每个元素的权重为 1
    */
-  private final HashMap<K, DNode<K, V>> table;
-  
+  private final Weigher<K, V> weigher;
+
   /**
-   * 链表容量
+   * 最大总权重，默认权重下就是链表容量
    */
-  private final int capacity;
+  private final long maximumWeight;
   
   /**
    * 链表长度
    */
   private int length = 0;
+
+  /**
+   * 当前总权重
+   */
+  private long weightedSize = 0;
+
+  /**
+   * 访问后过期的时间，单位纳秒，0 表示不启用
+   */
+  private long expireAfterAccessNanos;
+
+  /**
+   * 时间轮，第一次出现会过期的元素时才创建
+   */
+  private TimingWheel<K, V> timerWheel;
+
+  /**
+   * 时钟，单位纳秒
+   */
+  private LongSupplier ticker = System::nanoTime;
+
+  /**
+   * 统计计数器，默认不统计
+   */
+  private StatsCounter statsCounter = StatsCounter.disabled();
   
-  private LRUBaseHashTable(int capacity) {
-    this.capacity = capacity;
+  public LRUBaseHashTable(int capacity) {
+    this(capacity, new LruPolicy<>());
+  }
+
+  /**
+   * 使用指定的淘汰策略构建缓存
+   *
+   * @param capacity 缓存容量
+   * @param policy   淘汰策略，策略的 capacity 不为 0 时必须与缓存容量相同
+   */
+  public LRUBaseHashTable(int capacity, EvictionPolicy<K, V> policy) {
+    if (policy.capacity() != 0 && policy.capacity() != capacity) {
+      throw new IllegalArgumentException("淘汰策略的容量 " + policy.capacity() + " 与缓存容量 " + capacity + " 不同");
+    }
+    this.maximumWeight = capacity;
+    this.weigher = (key, value) -> 1;
+    this.policy = Objects.requireNonNull(policy);
     table = new HashMap<>(capacity);
-    
-    // 头尾指针都是哨兵结点
-    head = new DNode<>();
-    tail = new DNode<>();
-    
-    head.next = tail;
-    tail.prev = head;
-    
   }
 
-  public static void main(String[] args) {
+  /**
+   * 按照总权重限制容量，使用 LRU 淘汰策略
+   *
+   * @param maximumWeight 最大总权重
+   * @param weigher       权重函数
+   */
+  public LRUBaseHashTable(long maximumWeight, Weigher<K, V> weigher) {
+    this(maximumWeight, weigher, new LruPolicy<>());
+  }
+
+  /**
+   * 按照总权重限制容量，使用指定的淘汰策略
+   *
+   * @param maximumWeight 最大总权重
+   * @param weigher       权重函数
+   * @param policy        淘汰策略，策略的 capacity 是结点数量，与总权重无关，缓存中的结点数量可能超过它
+   */
+  public LRUBaseHashTable(long maximumWeight, Weigher<K, V> weigher, EvictionPolicy<K, V> policy) {
+    if (maximumWeight < 0) {
+      throw new IllegalArgumentException("最大总权重不能小于 0");
+    }
+    this.maximumWeight = maximumWeight;
+    this.weigher = Objects.requireNonNull(weigher);
+    this.policy = Objects.requireNonNull(policy);
+    table = new HashMap<>();
+  }
+
+  public static void main(String[] args) throws IOException {
     LRUBaseHashTable<String, Object> cache = new LRUBaseHashTable<>(10);
 
     cache.add("a", 1);
@@ -78,33 +154,230 @@ public class LRUBaseHashTable<K, V> {
     cache.get("c");
     cache.printAll();
 
+    // 过期：使用手动推进的时钟演示
+    long[] now = {0};
+    LRUBaseHashTable<String, Object> expiring = new LRUBaseHashTable<>(10);
+    expiring.ticker = () -> now[0];
+    expiring.setExpireAfterAccess(5, TimeUnit.SECONDS);
+    expiring.add("a", 1);
+    expiring.add("b", 2, 1, TimeUnit.SECONDS);
+    expiring.add("c", 3, 1, TimeUnit.MINUTES);
+    now[0] = TimeUnit.SECONDS.toNanos(2);
+    // b 的存活时间已到，读取时惰性删除
+    System.out.println("b = " + expiring.get("b"));
+    System.out.println("c = " + expiring.get("c"));
+    now[0] = TimeUnit.SECONDS.toNanos(6);
+    // a 在 2 秒后没有被访问，c 在 2 秒时被访问过，时间轮回收 a
+    expiring.cleanUp();
+    expiring.printAll();
+
+    // 按字符串长度限制容量，总长度不超过 10
+    LRUBaseHashTable<String, String> weighted = new LRUBaseHashTable<>(10, (k, v) -> v.length());
+    weighted.add("a", "aaaa");
+    weighted.add("b", "bbbb");
+    weighted.add("c", "cc");
+    weighted.printAll();
+    // 写入 6 个字符后超出 10，从尾部淘汰 a、b
+    weighted.add("d", "dddddd");
+    weighted.printAll();
+    System.out.println("总权重：" + weighted.weightedSize());
+
+    // 统计
+    ConcurrentStatsCounter counter = new ConcurrentStatsCounter(true);
+    weighted.setStatsCounter(counter);
+    weighted.get("c");
+    weighted.get("a");
+    weighted.add("e", "eeeee");
+    System.out.println(weighted.stats());
+    System.out.println("get 耗时：" + counter.getLatency());
+
+    // 快照与恢复，值按照字符串序列化
+    Serializer<Object> intSerializer = new Serializer<Object>() {
+      @Override
+      public byte[] serialize(Object value) {
+        return Serializer.utf8().serialize(String.valueOf(value));
+      }
+
+      @Override
+      public Object deserialize(byte[] bytes) {
+        return Integer.valueOf(Serializer.utf8().deserialize(bytes));
+      }
+    };
+    Path file = Files.createTempFile("lru", ".snapshot");
+    cache.snapshot(file, Serializer.utf8(), intSerializer);
+    LRUBaseHashTable<String, Object> restored = new LRUBaseHashTable<>(10);
+    restored.restore(file, Serializer.utf8(), intSerializer);
+    System.out.print("恢复后：");
+    restored.printAll();
+    Files.delete(file);
   }
 
   // 添加元素
   public void add(K key, V value) {
+    put(key, value, 0);
+  }
+
+  /**
+   * 添加元素，并指定该元素的存活时间，从写入开始计算，再次写入时重新计算
+   *
+   * @param key      键
+   * @param value    值
+   * @param duration 存活时间
+   * @param unit     时间单位
+   */
+  public void add(K key, V value, long duration, TimeUnit unit) {
+    if (duration <= 0) {
+      throw new IllegalArgumentException("存活时间必须大于 0");
+    }
+    put(key, value, unit.toNanos(duration));
+  }
+
+  /**
+   * 设置访问后过期：元素在指定时间内没有被读写则过期，只对之后读写的元素生效。
+   * 与存活时间同时存在时，先到达的时间生效
+   *
+   * @param duration 过期时间，0 表示不启用
+   * @param unit     时间单位
+   */
+  public void setExpireAfterAccess(long duration, TimeUnit unit) {
+    if (duration < 0) {
+      throw new IllegalArgumentException("过期时间不能小于 0");
+    }
+    expireAfterAccessNanos = unit.toNanos(duration);
+  }
+
+  /**
+   * 推进时间轮，回收所有已经过期的元素，可以由后台线程定时调用
+   */
+  public void cleanUp() {
+    if (timerWheel != null) {
+      timerWheel.advance(ticker.getAsLong(), this::removeNode);
+    }
+  }
+
+  /**
+   * 设置统计计数器
+   *
+   * @param statsCounter 计数器，StatsCounter.disabled() 表示不统计
+   */
+  public void setStatsCounter(StatsCounter statsCounter) {
+    this.statsCounter = Objects.requireNonNull(statsCounter);
+  }
+
+  /**
+   * 统计数据，包括当前总权重
+   *
+   * @return 统计数据快照
+   */
+  public CacheStats stats() {
+    return statsCounter.snapshot().withWeightedSize(weightedSize);
+  }
+
+  /**
+   * 把缓存内容按照从最热到最冷的顺序写入快照文件，通过内存映射分段写入，已经过期的元素不写入
+   *
+   * @param file            快照文件，已存在时原子地替换
+   * @param keySerializer   key 的序列化函数
+   * @param valueSerializer value 的序列化函数
+   * @return 写入的元素数量
+   * @throws IOException 写入异常
+   */
+  public long snapshot(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+    return CacheSnapshot.write(this, file, keySerializer, valueSerializer);
+  }
+
+  /**
+   * 从快照文件恢复，从最冷的元素开始逐条写入，LRU 策略恢复后的访问顺序与快照时相同，
+   * 其他策略的内部状态不会恢复，见 CacheSnapshot。
+   * 通过内存映射分段读取，不会把整个文件读入堆内存；设置过存活时间的元素按照快照时的剩余时间恢复
+   *
+   * @param file            快照文件
+   * @param keySerializer   key 的序列化函数
+   * @param valueSerializer value 的序列化函数
+   * @return 读取的元素数量
+   * @throws IOException 读取异常或文件格式错误
+   */
+  public long restore(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+    return CacheSnapshot.read(this, file, keySerializer, valueSerializer);
+  }
+
+  /**
+   * 按照淘汰策略的顺序从最热到最冷遍历结点
+   */
+  void forEachNode(Consumer<DNode<K, V>> action) {
+    policy.forEach(action);
+  }
+
+  long currentTime() {
+    return ticker.getAsLong();
+  }
+
+  private void put(K key, V value, long ttl) {
+    if (statsCounter.recordsLatency()) {
+      long start = System.nanoTime();
+      doPut(key, value, ttl);
+      statsCounter.recordAddLatency(System.nanoTime() - start);
+    } else {
+      doPut(key, value, ttl);
+    }
+  }
+
+  private void doPut(K key, V value, long ttl) {
+    long now = expireEntries(ttl > 0);
     DNode<K, V> node = table.get(key);
+    int weight = weigh(key, value);
     if (node == null) {
       DNode<K, V> newNode = new DNode<>(key, value);
+      newNode.weight = weight;
+      newNode.ttl = ttl;
+      newNode.writeTime = now;
+      scheduleExpiration(newNode, now);
       // 将元素插入到哈希表
       table.put(key, newNode);
-      // 将元素插入到链表头部
-      addNodeToHead(newNode);
+      // 由淘汰策略决定结点的位置，LRU 策略插入到链表头部
+      policy.onAdd(newNode);
       length++;
-
-      if (length >= capacity) {
-        // 缓存容量已经满了
-        // 删除尾结点元素
-        DNode<K, V> tailNode = popTail();
-        table.remove(tailNode.key);
-        length--;
-      }
+      weightedSize += weight;
 
     } else {
       node.value = value;
+      weightedSize += weight - node.weight;
+      node.weight = weight;
+      node.ttl = ttl;
+      node.writeTime = now;
+      scheduleExpiration(node, now);
       // 将元素移动到头部
-      moveNodeToHead(node);
+      policy.onAccess(node);
+    }
+
+    evictEntries();
+  }
+
+  /**
+   * 总权重超出上限时，由淘汰策略选出淘汰的结点，LRU 策略删除尾结点元素，直到总权重回到上限以内
+   */
+  private void evictEntries() {
+    while (weightedSize > maximumWeight) {
+      DNode<K, V> victim = policy.evict();
+      if (victim == null) {
+        break;
+      }
+      if (timerWheel != null) {
+        timerWheel.deschedule(victim);
+      }
+      table.remove(victim.key);
+      length--;
+      weightedSize -= victim.weight;
+      statsCounter.recordEviction(victim.weight);
     }
+  }
 
+  private int weigh(K key, V value) {
+    int weight = weigher.weigh(key, value);
+    if (weight < 0) {
+      throw new IllegalArgumentException("权重不能小于 0");
+    }
+    return weight;
   }
 
   /**
@@ -114,12 +387,49 @@ public class LRUBaseHashTable<K, V> {
    * @return
    */
   public V get(K key) {
+    return get(key, true);
+  }
+
+  /**
+   * 获取结点数据
+   *
+   * @param key         键
+   * @param recordStats 是否计入命中、未命中，LoadingCache 抢到加载权之后的再次检查不计入
+   * @return 值
+   */
+  V get(K key, boolean recordStats) {
+    if (recordStats && statsCounter.recordsLatency()) {
+      long start = System.nanoTime();
+      V value = doGet(key, true);
+      statsCounter.recordGetLatency(System.nanoTime() - start);
+      return value;
+    }
+    return doGet(key, recordStats);
+  }
+
+  private V doGet(K key, boolean recordStats) {
+    long now = expireEntries(false);
     DNode<K, V> node = table.get(key);
     if (node == null) {
+      if (recordStats) {
+        statsCounter.recordMisses(1);
+      }
       return null;
     }
+    if (node.timerNext != null && node.expireAt - now <= 0) {
+      // 已经过期但时间轮还没有推进到，惰性删除
+      removeNode(node);
+      if (recordStats) {
+        statsCounter.recordMisses(1);
+      }
+      return null;
+    }
+    if (recordStats) {
+      statsCounter.recordHits(1);
+    }
+    scheduleExpiration(node, now);
     // 移动结点到头部
-    moveNodeToHead(node);
+    policy.onAccess(node);
     return node.value;
   }
 
@@ -134,74 +444,88 @@ public class LRUBaseHashTable<K, V> {
       return;
     }
     removeNode(node);
-    table.remove(key);
-    length--;
   }
 
   /**
-   * 移动结点到头部
+   * 缓存中的元素数量，包括已经过期但还没有被回收的元素
    *
-   * @param node
+   * @return 元素数量
    */
-  private void moveNodeToHead(DNode<K, V> node) {
-    removeNode(node);
-    addNodeToHead(node);
+  public int size() {
+    return length;
   }
 
   /**
-   * 弹出尾部数据结点
+   * 缓存中元素的总权重，默认权重下等于元素数量
    *
-   * @return
+   * @return 总权重
    */
-  private DNode<K, V> popTail() {
-    // 尾结点是哨兵结点，需要获取它的前一个结点
-    DNode<K, V> node = tail.prev;
-    removeNode(node);
-    return node;
+  public long weightedSize() {
+    return weightedSize;
+  }
+
+  public void printAll() {
+    StringBuilder sb = new StringBuilder();
+    policy.forEach(n -> sb.append(n.toString()).append(", "));
+    System.out.println(sb);
   }
 
-  /**
-   * 移除结点
-   * <p>
-   * 修改结点的前驱指针结点
-   * 修改结点的后继指针结点
-   *
-   * @param node
-   */
   private void removeNode(DNode<K, V> node) {
-    node.prev.next = node.next;
-    node.next.prev = node.prev;
+    policy.onRemove(node);
+    if (timerWheel != null) {
+      timerWheel.deschedule(node);
+    }
+    table.remove(node.key);
+    length--;
+    weightedSize -= node.weight;
   }
 
   /**
-   * 添加元素到链表头部
+   * 推进时间轮，把过期的元素删除，没有会过期的元素时不读取时钟
    *
-   * @param newNode
+   * @param timed 本次操作是否需要当前时间
+   * @return 当前时间
    */
-  private void addNodeToHead(DNode<K, V> newNode) {
-    // 设置头结点
-    newNode.next = head.next;
-    newNode.prev = head;
-
-    head.next.prev = newNode;
-    head.next = newNode;
+  private long expireEntries(boolean timed) {
+    if (!timed && timerWheel == null && expireAfterAccessNanos == 0) {
+      return 0;
+    }
+    long now = ticker.getAsLong();
+    if (timerWheel != null) {
+      timerWheel.advance(now, this::removeNode);
+    }
+    return now;
   }
 
-  public void printAll() {
-    DNode<K, V> n = head.next;
-    StringBuilder sb = new StringBuilder();
-    while (n != null && n.next != null) {
-      sb.append(n.toString()).append(", ");
-      n = n.next;
+  /**
+   * 计算结点的过期时间并放入时间轮，存活时间与访问后过期取先到达的一个
+   *
+   * @param node 结点
+   * @param now  当前时间
+   */
+  private void scheduleExpiration(DNode<K, V> node, long now) {
+    if (node.ttl == 0 && expireAfterAccessNanos == 0) {
+      if (timerWheel != null) {
+        timerWheel.deschedule(node);
+      }
+      return;
     }
-    System.out.println(sb);
+    long expireAt = node.ttl > 0 ? node.writeTime + node.ttl : now + expireAfterAccessNanos;
+    if (node.ttl > 0 && expireAfterAccessNanos > 0 && now + expireAfterAccessNanos - expireAt < 0) {
+      expireAt = now + expireAfterAccessNanos;
+    }
+    node.expireAt = expireAt;
+    if (timerWheel == null) {
+      timerWheel = new TimingWheel<>(now);
+    }
+    timerWheel.reschedule(node);
   }
 
   // 查找元素
 
   // 删除元素
   
-  static class DNode<K, V> {
+  public static class DNode<K, V> {
     
     K key;
     
@@ -210,6 +534,38 @@ public class LRUBaseHashTable<K, V> {
     DNode<K, V> prev;
     
     DNode<K, V> next;
+
+    /**
+     * 结点所在的队列，由淘汰策略使用
+     */
+    int queue;
+
+    /**
+     * 权重
+     */
+    int weight;
+
+    /**
+     * 存活时间，单位纳秒，0 表示没有设置
+     */
+    long ttl;
+
+    /**
+     * 写入时间
+     */
+    long writeTime;
+
+    /**
+     * 过期时间，结点在时间轮中时有效
+     */
+    long expireAt;
+
+    /**
+     * 时间轮桶中的前后结点，不在时间轮中时为 null
+     */
+    DNode<K, V> timerPrev;
+
+    DNode<K, V> timerNext;
     
     DNode() {
     }
@@ -0,0 +1,395 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import com.kaige.datastructure.ch_06_linkedlist.CacheStats;
+import com.kaige.datastructure.ch_06_linkedlist.ConcurrentStatsCounter;
+import com.kaige.datastructure.ch_06_linkedlist.StatsCounter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 18-5 自动加载的缓存
+ * <p>
+ * 特点：
+ * 1. 基于分段加锁的 ConcurrentLRUHashTable，未命中时调用 CacheLoader 加载并写入缓存；
+ * 2. 同一个 key 同时只有一次加载（single-flight）：第一个未命中的线程负责加载，其他线程等待同一个 CompletableFuture，
+ * 避免热点 key 失效时大量请求同时打到后端；
+ * 3. 提前刷新（refresh-ahead）：元素写入超过刷新时间后，读取时仍然返回旧值，同时在线程池中异步刷新，
+ * 刷新时间应该小于过期时间，热点 key 在过期之前就被换成新值；
+ * 4. getAll 把所有未命中、且没有正在加载的 key 合并成一次 loadAll 调用
+ * 5. 开启统计后，除了命中、未命中、淘汰，还会记录每次加载（包括批量加载与刷新）的耗时
+ */
+public class LoadingCache<K, V> {
+
+  /**
+   * 缓存的值以及写入时间
+   */
+  private final ConcurrentLRUHashTable<K, Entry<V>> cache;
+
+  /**
+   * 正在加载或刷新的 key
+   */
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  private final CacheLoader<K, V> loader;
+
+  /**
+   * 执行异步刷新的线程池
+   */
+  private final Executor executor;
+
+  /**
+   * 写入后过期的时间，单位纳秒，0 表示不过期
+   */
+  private volatile long expireAfterWriteNanos;
+
+  /**
+   * 写入后刷新的时间，单位纳秒，0 表示不刷新
+   */
+  private volatile long refreshAfterWriteNanos;
+
+  /**
+   * 统计计数器，与底层的缓存共享
+   */
+  private volatile StatsCounter statsCounter = StatsCounter.disabled();
+
+  /**
+   * @param capacity 缓存容量
+   * @param loader   加载函数
+   * @param executor 执行异步刷新的线程池
+   */
+  public LoadingCache(int capacity, CacheLoader<K, V> loader, Executor executor) {
+    this.cache = new ConcurrentLRUHashTable<>(capacity);
+    this.loader = Objects.requireNonNull(loader);
+    this.executor = Objects.requireNonNull(executor);
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    AtomicInteger loads = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    LoadingCache<Integer, String> cache = new LoadingCache<>(100, key -> {
+      loads.incrementAndGet();
+      Thread.sleep(50);
+      return "v" + key;
+    }, executor);
+    cache.setStatsCounter(new ConcurrentStatsCounter());
+
+    // 32 个线程同时读取同一个未命中的 key，只加载一次
+    int threads = 32;
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(threads);
+    for (int i = 0; i < threads; i++) {
+      new Thread(() -> {
+        try {
+          start.await();
+          cache.get(1);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          done.countDown();
+        }
+      }).start();
+    }
+    start.countDown();
+    done.await();
+    System.out.println(threads + " 个线程并发读取，加载次数：" + loads.get());
+
+    // 批量读取，1 已经在缓存中，其余 key 合并成一次 loadAll，默认的 loadAll 逐个加载
+    loads.set(0);
+    System.out.println(cache.getAll(Arrays.asList(1, 2, 3, 4)) + "，加载次数：" + loads.get());
+
+    // 提前刷新：超过刷新时间后读取仍返回旧值，后台刷新
+    cache.setRefreshAfterWrite(100, TimeUnit.MILLISECONDS);
+    Thread.sleep(150);
+    loads.set(0);
+    System.out.println("刷新前读取：" + cache.get(2));
+    Thread.sleep(100);
+    System.out.println("后台刷新次数：" + loads.get());
+    System.out.println(cache.stats());
+    executor.shutdown();
+  }
+
+  /**
+   * 设置写入后过期的时间，只对之后写入的元素生效
+   *
+   * @param duration 过期时间，0 表示不过期
+   * @param unit     时间单位
+   */
+  public void setExpireAfterWrite(long duration, TimeUnit unit) {
+    if (duration < 0) {
+      throw new IllegalArgumentException("过期时间不能小于 0");
+    }
+    expireAfterWriteNanos = unit.toNanos(duration);
+  }
+
+  /**
+   * 设置写入后刷新的时间
+   *
+   * @param duration 刷新时间，0 表示不刷新
+   * @param unit     时间单位
+   */
+  public void setRefreshAfterWrite(long duration, TimeUnit unit) {
+    if (duration < 0) {
+      throw new IllegalArgumentException("刷新时间不能小于 0");
+    }
+    refreshAfterWriteNanos = unit.toNanos(duration);
+  }
+
+  /**
+   * 设置统计计数器，需要是线程安全的，例如 ConcurrentStatsCounter
+   *
+   * @param statsCounter 计数器，StatsCounter.disabled() 表示不统计
+   */
+  public void setStatsCounter(StatsCounter statsCounter) {
+    cache.setStatsCounter(statsCounter);
+    this.statsCounter = statsCounter;
+  }
+
+  /**
+   * 统计数据
+   *
+   * @return 统计数据快照
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /**
+   * 获取元素，未命中时加载，同一个 key 的并发加载只会执行一次
+   *
+   * @param key 键
+   * @return 值，加载结果为 null 时返回 null
+   * @throws CompletionException 加载失败，原始异常为 cause，等待同一次加载的线程都会收到
+   */
+  public V get(K key) {
+    Entry<V> entry = cache.get(key);
+    if (entry != null) {
+      refreshIfNeeded(key, entry);
+      return entry.value;
+    }
+    CompletableFuture<V> future = new CompletableFuture<>();
+    CompletableFuture<V> loading = inFlight.putIfAbsent(key, future);
+    if (loading != null) {
+      // 其他线程正在加载，等待同一个结果
+      return loading.join();
+    }
+    long start = 0;
+    try {
+      // 抢到加载权之前，上一次加载可能刚好写入缓存并结束，这次检查已经计入过未命中
+      entry = cache.get(key, false);
+      if (entry != null) {
+        future.complete(entry.value);
+      } else {
+        start = System.nanoTime();
+        V value = loader.load(key);
+        statsCounter.recordLoadSuccess(System.nanoTime() - start);
+        publish(key, future, value);
+        future.complete(value);
+      }
+    } catch (Throwable e) {
+      if (start != 0) {
+        statsCounter.recordLoadFailure(System.nanoTime() - start);
+      }
+      future.completeExceptionally(e);
+    } finally {
+      inFlight.remove(key, future);
+    }
+    return future.join();
+  }
+
+  /**
+   * 批量获取元素，未命中的 key 合并成一次 loadAll 调用，正在被其他线程加载的 key 等待其结果
+   *
+   * @param keys 键
+   * @return 按照 keys 的顺序排列的结果，不存在的 key 不在结果中
+   * @throws CompletionException 加载失败
+   */
+  public Map<K, V> getAll(Iterable<? extends K> keys) {
+    Map<K, V> result = new LinkedHashMap<>();
+    Map<K, CompletableFuture<V>> waiting = new LinkedHashMap<>();
+    Map<K, CompletableFuture<V>> claimed = new LinkedHashMap<>();
+    for (K key : keys) {
+      if (result.containsKey(key) || waiting.containsKey(key)) {
+        continue;
+      }
+      Entry<V> entry = cache.get(key);
+      if (entry != null) {
+        refreshIfNeeded(key, entry);
+        result.put(key, entry.value);
+        continue;
+      }
+      CompletableFuture<V> future = new CompletableFuture<>();
+      CompletableFuture<V> loading = inFlight.putIfAbsent(key, future);
+      if (loading == null) {
+        claimed.put(key, future);
+        waiting.put(key, future);
+      } else {
+        waiting.put(key, loading);
+      }
+    }
+    if (!claimed.isEmpty()) {
+      loadAll(claimed);
+    }
+    for (Map.Entry<K, CompletableFuture<V>> e : waiting.entrySet()) {
+      V value = e.getValue().join();
+      if (value != null) {
+        result.put(e.getKey(), value);
+      }
+    }
+    // 保持 keys 的顺序
+    Map<K, V> ordered = new LinkedHashMap<>();
+    for (K key : keys) {
+      V value = result.get(key);
+      if (value != null) {
+        ordered.put(key, value);
+      }
+    }
+    return ordered;
+  }
+
+  /**
+   * 移出元素，同时作废这个 key 正在进行的加载或刷新，它们的结果不会再写入缓存，
+   * 等待这次加载的线程仍然会收到结果
+   *
+   * @param key 键
+   */
+  public void invalidate(K key) {
+    inFlight.compute(key, (k, loading) -> {
+      cache.remove(k);
+      return null;
+    });
+  }
+
+  /**
+   * 缓存中的元素数量
+   *
+   * @return 元素数量
+   */
+  public int size() {
+    return cache.size();
+  }
+
+  /**
+   * 一次 loadAll 加载本线程抢到加载权的所有 key，并完成对应的 future
+   */
+  private void loadAll(Map<K, CompletableFuture<V>> claimed) {
+    long start = System.nanoTime();
+    try {
+      Set<K> keys = new LinkedHashSet<>(claimed.keySet());
+      Map<K, V> loaded = loader.loadAll(Collections.unmodifiableSet(keys));
+      statsCounter.recordLoadSuccess(System.nanoTime() - start);
+      for (Map.Entry<K, CompletableFuture<V>> e : claimed.entrySet()) {
+        V value = loaded == null ? null : loaded.get(e.getKey());
+        publish(e.getKey(), e.getValue(), value);
+        e.getValue().complete(value);
+      }
+    } catch (Throwable e) {
+      statsCounter.recordLoadFailure(System.nanoTime() - start);
+      for (CompletableFuture<V> future : claimed.values()) {
+        future.completeExceptionally(e);
+      }
+    } finally {
+      for (Map.Entry<K, CompletableFuture<V>> e : claimed.entrySet()) {
+        inFlight.remove(e.getKey(), e.getValue());
+      }
+    }
+  }
+
+  /**
+   * 元素写入超过刷新时间时提交异步刷新，同一个 key 同时只有一次刷新，刷新失败时保留旧值
+   */
+  private void refreshIfNeeded(K key, Entry<V> entry) {
+    long refreshNanos = refreshAfterWriteNanos;
+    if (refreshNanos == 0 || System.nanoTime() - entry.writeTime < refreshNanos) {
+      return;
+    }
+    CompletableFuture<V> future = new CompletableFuture<>();
+    if (inFlight.putIfAbsent(key, future) != null) {
+      return;
+    }
+    try {
+      executor.execute(() -> {
+        long start = System.nanoTime();
+        try {
+          V value = loader.reload(key, entry.value);
+          statsCounter.recordLoadSuccess(System.nanoTime() - start);
+          publish(key, future, value);
+          future.complete(value);
+        } catch (Throwable e) {
+          statsCounter.recordLoadFailure(System.nanoTime() - start);
+          // 刷新失败时旧值仍然可用，等待中的线程退回旧值
+          future.complete(entry.value);
+        } finally {
+          inFlight.remove(key, future);
+        }
+      });
+    } catch (RuntimeException e) {
+      // 线程池拒绝任务，下次读取时再尝试刷新
+      inFlight.remove(key, future);
+      future.complete(entry.value);
+    }
+  }
+
+  /**
+   * 写入加载结果，只有 future 仍然是这个 key 正在进行的加载时才写入，结果为 null 时移出旧值。
+   * 检查与写入在 inFlight 的同一个 key 上原子地执行，invalidate 之后不会把旧的加载结果写回缓存
+   */
+  private void publish(K key, CompletableFuture<V> future, V value) {
+    inFlight.computeIfPresent(key, (k, loading) -> {
+      if (loading == future) {
+        if (value == null) {
+          cache.remove(k);
+        } else {
+          put(k, value);
+        }
+      }
+      return loading;
+    });
+  }
+
+  private void put(K key, V value) {
+    if (value == null) {
+      return;
+    }
+    Entry<V> entry = new Entry<>(value, System.nanoTime());
+    long expireNanos = expireAfterWriteNanos;
+    if (expireNanos > 0) {
+      cache.add(key, entry, expireNanos, TimeUnit.NANOSECONDS);
+    } else {
+      cache.add(key, entry);
+    }
+  }
+
+  private static class Entry<V> {
+
+    final V value;
+
+    final long writeTime;
+
+    Entry(V value, long writeTime) {
+      this.value = value;
+      this.writeTime = writeTime;
+    }
+
+    @Override
+    public String toString() {
+      return String.valueOf(value);
+    }
+
+  }
+
+}
@@ -0,0 +1,44 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import com.kaige.datastructure.ch_18_hashtable.LRUBaseHashTable.DNode;
+
+import java.util.function.Consumer;
+
+/**
+ * LRU 淘汰策略
+ * <p>
+ * 访问过的结点移动到链表头部，淘汰链表尾部的结点
+ */
+public class LruPolicy<K, V> implements EvictionPolicy<K, V> {
+
+  private final DNodeList<K, V> list = new DNodeList<>();
+
+  @Override
+  public void onAdd(DNode<K, V> node) {
+    // 将元素插入到链表头部
+    list.addFirst(node);
+  }
+
+  @Override
+  public void onAccess(DNode<K, V> node) {
+    // 移动结点到头部
+    list.moveToFirst(node);
+  }
+
+  @Override
+  public void onRemove(DNode<K, V> node) {
+    list.remove(node);
+  }
+
+  @Override
+  public DNode<K, V> evict() {
+    // 弹出尾部数据结点
+    return list.pollLast();
+  }
+
+  @Override
+  public void forEach(Consumer<DNode<K, V>> action) {
+    list.forEach(action);
+  }
+
+}
@@ -0,0 +1,84 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 序列化函数，把键或值转换为字节数组，用于缓存快照、持久化队列
+ */
+public interface Serializer<T> {
+
+  /**
+   * 序列化
+   *
+   * @param value 对象
+   * @return 字节数组
+   */
+  byte[] serialize(T value);
+
+  /**
+   * 反序列化
+   *
+   * @param bytes 字节数组
+   * @return 对象
+   */
+  T deserialize(byte[] bytes);
+
+  /**
+   * UTF-8 字符串
+   *
+   * @return 序列化函数
+   */
+  static Serializer<String> utf8() {
+    return new Serializer<String>() {
+      @Override
+      public byte[] serialize(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+      }
+
+      @Override
+      public String deserialize(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+      }
+    };
+  }
+
+  /**
+   * 字节数组本身，不做转换
+   *
+   * @return 序列化函数
+   */
+  static Serializer<byte[]> bytes() {
+    return new Serializer<byte[]>() {
+      @Override
+      public byte[] serialize(byte[] value) {
+        return value;
+      }
+
+      @Override
+      public byte[] deserialize(byte[] bytes) {
+        return bytes;
+      }
+    };
+  }
+
+  /**
+   * 8 字节的 long
+   *
+   * @return 序列化函数
+   */
+  static Serializer<Long> int64() {
+    return new Serializer<Long>() {
+      @Override
+      public byte[] serialize(Long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+      }
+
+      @Override
+      public Long deserialize(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).getLong();
+      }
+    };
+  }
+
+}
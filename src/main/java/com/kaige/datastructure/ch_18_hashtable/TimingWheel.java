@@ -0,0 +1,169 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import com.kaige.datastructure.ch_18_hashtable.LRUBaseHashTable.DNode;
+
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * <p>
+ * 1. 共 5 层，每层 64 个桶，桶的时间跨度逐层扩大 64 倍：约 1ms、67ms、4.3s、4.6min、4.9h；
+ * 2. 结点按照过期时间与当前时间的差值放入合适的层，差值越大，放入的层越高、精度越低；
+ * 3. 时间推进时，只处理走过的桶：已经过期的结点回调出去，还没过期的结点重新放入更低的层（降级）；
+ * 4. 加入、移除结点都是 O(1)，每个结点最多降级 4 次，回收过期结点的均摊时间复杂度为 O(1)
+ * <p>
+ * 时间单位为纳秒，桶内的结点通过 DNode 的 timerPrev、timerNext 组成双向循环链表
+ */
+class TimingWheel<K, V> {
+
+  /**
+   * 每层的桶数量
+   */
+  private static final int BUCKETS = 64;
+
+  /**
+   * 每层一个桶的时间跨度的位数：2^20ns ≈ 1ms，之后每层乘以 64
+   */
+  private static final int[] SHIFT = {20, 26, 32, 38, 44};
+
+  /**
+   * 每层一个桶的时间跨度
+   */
+  private static final long[] SPANS = {
+    1L << SHIFT[0], 1L << SHIFT[1], 1L << SHIFT[2], 1L << SHIFT[3], 1L << SHIFT[4], 1L << (SHIFT[4] + 6)};
+
+  /**
+   * 每个桶的哨兵结点
+   */
+  private final DNode<K, V>[][] wheel;
+
+  /**
+   * 时间轮当前的时间
+   */
+  private long nanos;
+
+  TimingWheel(long now) {
+    nanos = now;
+    @SuppressWarnings("unchecked")
+    DNode<K, V>[][] levels = (DNode<K, V>[][]) new DNode<?, ?>[SHIFT.length][BUCKETS];
+    wheel = levels;
+    for (DNode<K, V>[] level : wheel) {
+      for (int j = 0; j < BUCKETS; j++) {
+        DNode<K, V> sentinel = new DNode<>();
+        sentinel.timerPrev = sentinel;
+        sentinel.timerNext = sentinel;
+        level[j] = sentinel;
+      }
+    }
+  }
+
+  /**
+   * 按照结点的 expireAt 放入时间轮
+   *
+   * @param node 结点
+   */
+  void schedule(DNode<K, V> node) {
+    DNode<K, V> sentinel = findBucket(node.expireAt);
+    node.timerNext = sentinel;
+    node.timerPrev = sentinel.timerPrev;
+    sentinel.timerPrev.timerNext = node;
+    sentinel.timerPrev = node;
+  }
+
+  /**
+   * 过期时间变化后重新放入时间轮
+   *
+   * @param node 结点
+   */
+  void reschedule(DNode<K, V> node) {
+    if (node.timerNext != null) {
+      unlink(node);
+    }
+    schedule(node);
+  }
+
+  /**
+   * 从时间轮中移除结点，结点不在时间轮中时不做任何事
+   *
+   * @param node 结点
+   */
+  void deschedule(DNode<K, V> node) {
+    if (node.timerNext != null) {
+      unlink(node);
+    }
+  }
+
+  /**
+   * 推进时间轮到 now，回调所有已经过期的结点
+   *
+   * @param now     当前时间
+   * @param expired 过期结点的回调
+   */
+  void advance(long now, Consumer<DNode<K, V>> expired) {
+    long previous = nanos;
+    nanos = now;
+    for (int i = 0; i < SHIFT.length; i++) {
+      long previousTicks = previous >>> SHIFT[i];
+      long currentTicks = now >>> SHIFT[i];
+      if (currentTicks - previousTicks <= 0) {
+        // 这一层没有走过新的桶，更高的层也不会有
+        break;
+      }
+      expire(i, previousTicks, currentTicks, expired);
+    }
+  }
+
+  /**
+   * 处理第 level 层从 previousTicks 到 currentTicks 走过的桶
+   */
+  private void expire(int level, long previousTicks, long currentTicks, Consumer<DNode<K, V>> expired) {
+    DNode<K, V>[] buckets = wheel[level];
+    long delta = Math.min(currentTicks - previousTicks + 1, BUCKETS);
+    for (long t = 0; t < delta; t++) {
+      DNode<K, V> sentinel = buckets[(int) ((previousTicks + t) & (BUCKETS - 1))];
+      DNode<K, V> node = sentinel.timerNext;
+      // 先把整个桶摘下来，处理过程中重新放回的结点不会被重复处理
+      sentinel.timerPrev = sentinel;
+      sentinel.timerNext = sentinel;
+      while (node != sentinel) {
+        DNode<K, V> next = node.timerNext;
+        node.timerPrev = null;
+        node.timerNext = null;
+        if (node.expireAt - nanos <= 0) {
+          expired.accept(node);
+        } else {
+          schedule(node);
+        }
+        node = next;
+      }
+    }
+  }
+
+  /**
+   * 根据过期时间找到对应的桶
+   *
+   * @param expireAt 过期时间
+   * @return 桶的哨兵结点
+   */
+  private DNode<K, V> findBucket(long expireAt) {
+    long duration = expireAt - nanos;
+    int last = SHIFT.length - 1;
+    for (int i = 0; i < last; i++) {
+      if (duration < SPANS[i + 1]) {
+        long ticks = expireAt >>> SHIFT[i];
+        return wheel[i][(int) (ticks & (BUCKETS - 1))];
+      }
+    }
+    // 超出时间轮范围的结点放在最高层，到期前会被反复降级
+    long ticks = expireAt >>> SHIFT[last];
+    return wheel[last][(int) (ticks & (BUCKETS - 1))];
+  }
+
+  private void unlink(DNode<K, V> node) {
+    node.timerPrev.timerNext = node.timerNext;
+    node.timerNext.timerPrev = node.timerPrev;
+    node.timerPrev = null;
+    node.timerNext = null;
+  }
+
+}
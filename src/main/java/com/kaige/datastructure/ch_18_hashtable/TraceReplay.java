@@ -0,0 +1,240 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * 18-4 缓存访问轨迹回放
+ * <p>
+ * 按顺序回放 key 的访问轨迹：命中则计数，未命中则写入缓存，统计不同淘汰策略的命中率。
+ * <p>
+ * 用法：TraceReplay [轨迹文件] [容量1 容量2 ...]
+ * <p>
+ * 轨迹文件每行一个 key，数字直接作为 key，其他字符串取哈希值。不指定轨迹文件时依次回放合成的轨迹：
+ * 纯 Zipf 热点访问；Zipf 热点访问中间穿插一次性的批量扫描；Zipf 热点与缓慢移动的工作集交替出现
+ */
+public class TraceReplay {
+
+  /**
+   * 默认回放的缓存容量
+   */
+  private static final int[] DEFAULT_CAPACITIES = {1_000, 5_000, 20_000};
+
+  /**
+   * 合成轨迹的命中率：
+   * <pre>
+   * 轨迹                   容量     LRU      W-TinyLFU  ARC      2Q
+   * Zipf                   1000     34.24%   45.09%     44.61%   43.34%
+   *                        5000     51.46%   60.56%     59.27%   58.17%
+   *                        20000    70.46%   75.78%     73.74%   73.20%
+   * Zipf + 批量扫描        1000     22.76%   30.03%     29.74%   28.90%
+   *                        5000     33.80%   40.16%     39.57%   38.81%
+   *                        20000    43.55%   50.12%     49.92%   48.78%
+   * Zipf 与移动工作集交替  1000     42.01%   45.92%     46.84%   46.13%
+   *                        5000     74.97%   76.73%     78.02%   77.52%
+   *                        20000    84.27%   85.85%     85.42%   85.55%
+   * </pre>
+   * ARC 在近期性与频率之间自动调整，在交替出现的轨迹上表现最好
+   */
+  public static void main(String[] args) throws IOException {
+    Map<String, long[]> traces = new LinkedHashMap<>();
+    if (args.length > 0) {
+      traces.put(args[0], readTrace(args[0]));
+    } else {
+      traces.put("Zipf", zipf(2_000_000, 100_000, 0.9, 42));
+      traces.put("Zipf + 批量扫描", zipfWithScans(2_000_000, 100_000, 0.9, 100_000, 50_000, 42));
+      traces.put("Zipf 与移动工作集交替", phases(8, 250_000, 100_000, 0.9, 2_000, 42));
+    }
+    int[] capacities = DEFAULT_CAPACITIES;
+    if (args.length > 1) {
+      capacities = Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray();
+    }
+    for (Map.Entry<String, long[]> trace : traces.entrySet()) {
+      System.out.println("轨迹：" + trace.getKey() + "\t访问次数：" + trace.getValue().length);
+      replayAll(trace.getValue(), capacities, policies());
+    }
+  }
+
+  /**
+   * 参与比较的淘汰策略
+   *
+   * @return 策略名称与策略工厂，工厂的参数为缓存容量
+   */
+  static Map<String, IntFunction<EvictionPolicy<Long, Long>>> policies() {
+    Map<String, IntFunction<EvictionPolicy<Long, Long>>> policies = new LinkedHashMap<>();
+    policies.put("LRU", capacity -> new LruPolicy<>());
+    policies.put("W-TinyLFU", WTinyLfuPolicy::new);
+    policies.put("ARC", ArcPolicy::new);
+    policies.put("2Q", TwoQueuePolicy::new);
+    return policies;
+  }
+
+  /**
+   * 在每个容量下回放所有策略，打印命中率
+   */
+  static void replayAll(long[] trace, int[] capacities,
+    Map<String, IntFunction<EvictionPolicy<Long, Long>>> policies) {
+    for (int capacity : capacities) {
+      StringBuilder sb = new StringBuilder("容量 = " + capacity);
+      for (Map.Entry<String, IntFunction<EvictionPolicy<Long, Long>>> entry : policies.entrySet()) {
+        LRUBaseHashTable<Long, Long> cache = new LRUBaseHashTable<>(capacity, entry.getValue().apply(capacity));
+        sb.append(String.format("\t%s：%.2f%%", entry.getKey(), replay(cache, trace) * 100));
+      }
+      System.out.println(sb);
+    }
+  }
+
+  /**
+   * 回放轨迹
+   *
+   * @param cache 缓存
+   * @param trace 访问轨迹
+   * @return 命中率
+   */
+  static double replay(LRUBaseHashTable<Long, Long> cache, long[] trace) {
+    long hits = 0;
+    for (long key : trace) {
+      Long k = key;
+      if (cache.get(k) != null) {
+        hits++;
+      } else {
+        cache.add(k, k);
+      }
+    }
+    return trace.length == 0 ? 0 : (double) hits / trace.length;
+  }
+
+  /**
+   * 读取轨迹文件
+   *
+   * @param path 文件路径
+   * @return 访问轨迹
+   * @throws IOException 读取异常
+   */
+  static long[] readTrace(String path) throws IOException {
+    long[] trace = new long[1024];
+    int size = 0;
+    try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty()) {
+          continue;
+        }
+        if (size == trace.length) {
+          trace = Arrays.copyOf(trace, size * 2);
+        }
+        trace[size++] = parseKey(line);
+      }
+    }
+    return Arrays.copyOf(trace, size);
+  }
+
+  private static long parseKey(String line) {
+    try {
+      return Long.parseLong(line);
+    } catch (NumberFormatException e) {
+      return line.hashCode();
+    }
+  }
+
+  /**
+   * 生成 Zipf 分布的访问轨迹
+   *
+   * @param length   访问次数
+   * @param keys     key 的数量，key 的取值为 0 ~ keys-1，越小越热
+   * @param exponent Zipf 指数，越大热点越集中
+   * @param seed     随机数种子
+   * @return 访问轨迹
+   */
+  static long[] zipf(int length, int keys, double exponent, long seed) {
+    // 累积分布函数，通过二分查找把均匀分布的随机数映射为 Zipf 分布
+    double[] cdf = new double[keys];
+    double sum = 0;
+    for (int i = 0; i < keys; i++) {
+      sum += 1.0 / Math.pow(i + 1, exponent);
+      cdf[i] = sum;
+    }
+    Random random = new Random(seed);
+    long[] trace = new long[length];
+    for (int i = 0; i < length; i++) {
+      int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+      trace[i] = index >= 0 ? index : -index - 1;
+    }
+    return trace;
+  }
+
+  /**
+   * 生成 Zipf 热点访问，并每隔一段时间插入一次批量扫描，扫描的 key 都只访问一次
+   *
+   * @param length     热点访问次数
+   * @param keys       热点 key 的数量
+   * @param exponent   Zipf 指数
+   * @param scanEvery  每隔多少次热点访问插入一次扫描
+   * @param scanLength 每次扫描的 key 数量
+   * @param seed       随机数种子
+   * @return 访问轨迹
+   */
+  static long[] zipfWithScans(int length, int keys, double exponent, int scanEvery, int scanLength, long seed) {
+    long[] hot = zipf(length, keys, exponent, seed);
+    int scans = length / scanEvery;
+    long[] trace = new long[length + scans * scanLength];
+    // 扫描使用的 key 与热点 key 不重叠，且每次扫描都不相同
+    long scanKey = keys;
+    int p = 0;
+    for (int i = 0; i < length; i++) {
+      trace[p++] = hot[i];
+      if ((i + 1) % scanEvery == 0) {
+        for (int j = 0; j < scanLength; j++) {
+          trace[p++] = scanKey++;
+        }
+      }
+    }
+    return trace;
+  }
+
+  /**
+   * 生成频率型与近期型交替出现的访问轨迹：偶数阶段是 Zipf 热点访问，奇数阶段是缓慢移动的工作集，
+   * 工作集内的 key 均匀访问，并且每隔一段时间整体向后移动一个 key，适合 LRU 而不适合只看频率的策略
+   *
+   * @param phases      阶段数量
+   * @param phaseLength 每个阶段的访问次数
+   * @param keys        热点 key 的数量
+   * @param exponent    Zipf 指数
+   * @param window      工作集大小
+   * @param seed        随机数种子
+   * @return 访问轨迹
+   */
+  static long[] phases(int phases, int phaseLength, int keys, double exponent, int window, long seed) {
+    long[] hot = zipf(phaseLength * ((phases + 1) / 2), keys, exponent, seed);
+    Random random = new Random(seed + 1);
+    long[] trace = new long[phases * phaseLength];
+    // 工作集使用的 key 与热点 key 不重叠，每访问 window / 10 次移动一个 key
+    long base = keys;
+    int step = Math.max(1, window / 10);
+    int p = 0;
+    int h = 0;
+    for (int phase = 0; phase < phases; phase++) {
+      for (int i = 0; i < phaseLength; i++) {
+        if (phase % 2 == 0) {
+          trace[p++] = hot[h++];
+        } else {
+          if (i % step == 0) {
+            base++;
+          }
+          trace[p++] = base + random.nextInt(window);
+        }
+      }
+    }
+    return trace;
+  }
+
+}
@@ -0,0 +1,103 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import com.kaige.datastructure.ch_18_hashtable.LRUBaseHashTable.DNode;
+
+import java.util.function.Consumer;
+
+/**
+ * 2Q 淘汰策略
+ * <p>
+ * 1. 新结点进入 FIFO 队列 A1in（约 25% 容量），在 A1in 中再次访问不改变顺序，短时间内的重复访问不算热点；
+ * 2. A1in 淘汰的结点只把 key 记录到幽灵链表 A1out（约 50% 容量）；
+ * 3. 未命中的 key 在 A1out 中，说明它在较长的时间内被访问了两次，直接进入 LRU 队列 Am；
+ * 4. 只访问一次的数据（例如批量扫描）只会经过 A1in，不会挤掉 Am 中的热点
+ */
+public class TwoQueuePolicy<K, V> implements EvictionPolicy<K, V> {
+
+  private static final int A1_IN = 0;
+
+  private static final int AM = 1;
+
+  private final DNodeList<K, V> a1in = new DNodeList<>();
+
+  private final DNodeList<K, V> am = new DNodeList<>();
+
+  private final GhostList<K, V> a1out = new GhostList<>();
+
+  /**
+   * A1in 的最大长度
+   */
+  private final int kin;
+
+  /**
+   * A1out 的最大长度
+   */
+  private final int kout;
+
+  /**
+   * 缓存容量
+   */
+  private final int capacity;
+
+  /**
+   * @param capacity 缓存容量，与缓存的容量相同
+   */
+  public TwoQueuePolicy(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("容量必须大于 0：" + capacity);
+    }
+    this.capacity = capacity;
+    kin = Math.max(1, capacity / 4);
+    kout = Math.max(1, capacity / 2);
+  }
+
+  @Override
+  public void onAdd(DNode<K, V> node) {
+    if (a1out.remove(node.key)) {
+      node.queue = AM;
+      am.addFirst(node);
+    } else {
+      node.queue = A1_IN;
+      a1in.addFirst(node);
+    }
+  }
+
+  @Override
+  public void onAccess(DNode<K, V> node) {
+    if (node.queue == AM) {
+      am.moveToFirst(node);
+    }
+  }
+
+  @Override
+  public void onRemove(DNode<K, V> node) {
+    (node.queue == AM ? am : a1in).remove(node);
+  }
+
+  @Override
+  public DNode<K, V> evict() {
+    if (a1in.size() > kin || am.isEmpty()) {
+      DNode<K, V> victim = a1in.pollLast();
+      if (victim != null) {
+        a1out.addFirst(victim.key);
+        if (a1out.size() > kout) {
+          a1out.removeLast();
+        }
+      }
+      return victim;
+    }
+    return am.pollLast();
+  }
+
+  @Override
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public void forEach(Consumer<DNode<K, V>> action) {
+    am.forEach(action);
+    a1in.forEach(action);
+  }
+
+}
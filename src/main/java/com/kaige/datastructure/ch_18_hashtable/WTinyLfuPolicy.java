@@ -0,0 +1,175 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+import com.kaige.datastructure.ch_18_hashtable.LRUBaseHashTable.DNode;
+
+import java.util.function.Consumer;
+
+/**
+ * W-TinyLFU 淘汰策略
+ * <p>
+ * 1. 新结点先进入一个很小的 LRU 窗口（约 1% 容量），让突发的新数据有机会积累访问频率；
+ * 2. 主缓存是分段 LRU（SLRU）：试用区（probation）约 20%，保护区（protected）约 80%，试用区的结点再次被访问时晋升到保护区；
+ * 3. 窗口满了以后，窗口淘汰出的候选者要和主缓存的淘汰者比较频率（TinyLFU 准入），频率更高的留下；
+ * 4. 频率由 FrequencySketch 统计，并定期老化，一次性扫描的数据频率很低，无法挤掉真正的热点
+ */
+public class WTinyLfuPolicy<K, V> implements EvictionPolicy<K, V> {
+
+  private static final int WINDOW = 0;
+
+  private static final int PROBATION = 1;
+
+  private static final int PROTECTED = 2;
+
+  private final DNodeList<K, V> window = new DNodeList<>();
+
+  private final DNodeList<K, V> probation = new DNodeList<>();
+
+  private final DNodeList<K, V> protectedList = new DNodeList<>();
+
+  private final FrequencySketch<K> sketch;
+
+  /**
+   * 窗口的最大容量
+   */
+  private final int windowMax;
+
+  /**
+   * 主缓存的最大容量
+   */
+  private final int mainMax;
+
+  /**
+   * 保护区的最大容量
+   */
+  private final int protectedMax;
+
+  /**
+   * 缓存容量
+   */
+  private final int capacity;
+
+  /**
+   * @param capacity 缓存容量，与缓存的容量相同
+   */
+  public WTinyLfuPolicy(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("容量必须大于 0：" + capacity);
+    }
+    this.capacity = capacity;
+    windowMax = Math.max(1, capacity / 100);
+    mainMax = capacity - windowMax;
+    protectedMax = mainMax * 4 / 5;
+    sketch = new FrequencySketch<>(capacity);
+  }
+
+  @Override
+  public void onAdd(DNode<K, V> node) {
+    sketch.increment(node.key);
+    node.queue = WINDOW;
+    window.addFirst(node);
+  }
+
+  @Override
+  public void onAccess(DNode<K, V> node) {
+    sketch.increment(node.key);
+    switch (node.queue) {
+      case WINDOW:
+        window.moveToFirst(node);
+        break;
+      case PROBATION:
+        // 试用区的结点再次被访问，晋升到保护区，保护区满了则把最久未访问的结点降级回试用区
+        probation.remove(node);
+        node.queue = PROTECTED;
+        protectedList.addFirst(node);
+        if (protectedList.size() > protectedMax) {
+          DNode<K, V> demoted = protectedList.pollLast();
+          demoted.queue = PROBATION;
+          probation.addFirst(demoted);
+        }
+        break;
+      default:
+        protectedList.moveToFirst(node);
+        break;
+    }
+  }
+
+  @Override
+  public void onRemove(DNode<K, V> node) {
+    queueOf(node).remove(node);
+  }
+
+  @Override
+  public DNode<K, V> evict() {
+    while (true) {
+      if (window.size() > windowMax || mainSize() == 0) {
+        DNode<K, V> candidate = window.pollLast();
+        if (candidate == null) {
+          return pollMainVictim();
+        }
+        if (mainSize() < mainMax) {
+          // 主缓存还有空间，候选者直接进入试用区，继续检查是否需要淘汰
+          candidate.queue = PROBATION;
+          probation.addFirst(candidate);
+          continue;
+        }
+        DNode<K, V> victim = peekMainVictim();
+        if (victim == null) {
+          return candidate;
+        }
+        // TinyLFU 准入：候选者的频率比主缓存的淘汰者高才能留下
+        if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+          queueOf(victim).remove(victim);
+          candidate.queue = PROBATION;
+          probation.addFirst(candidate);
+          return victim;
+        }
+        return candidate;
+      }
+      return pollMainVictim();
+    }
+  }
+
+  @Override
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public void forEach(Consumer<DNode<K, V>> action) {
+    window.forEach(action);
+    protectedList.forEach(action);
+    probation.forEach(action);
+  }
+
+  private int mainSize() {
+    return probation.size() + protectedList.size();
+  }
+
+  /**
+   * 主缓存的淘汰者：优先淘汰试用区的尾部结点，试用区为空时淘汰保护区的尾部结点
+   */
+  private DNode<K, V> peekMainVictim() {
+    DNode<K, V> victim = probation.peekLast();
+    return victim != null ? victim : protectedList.peekLast();
+  }
+
+  private DNode<K, V> pollMainVictim() {
+    DNode<K, V> victim = peekMainVictim();
+    if (victim != null) {
+      queueOf(victim).remove(victim);
+    }
+    return victim;
+  }
+
+  private DNodeList<K, V> queueOf(DNode<K, V> node) {
+    switch (node.queue) {
+      case WINDOW:
+        return window;
+      case PROBATION:
+        return probation;
+      default:
+        return protectedList;
+    }
+  }
+
+}
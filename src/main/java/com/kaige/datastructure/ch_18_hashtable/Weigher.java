@@ -0,0 +1,20 @@
+package com.kaige.datastructure.ch_18_hashtable;
+
+/**
+ * 权重函数
+ * <p>
+ * 计算一个元素占用的权重，例如值的字节数，缓存按照总权重而不是元素数量限制容量
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+  /**
+   * 计算元素的权重，元素写入时计算一次，更新值时重新计算
+   *
+   * @param key   键
+   * @param value 值
+   * @return 权重，不能小于 0
+   */
+  int weigh(K key, V value);
+
+}